@@ -0,0 +1,146 @@
+package phone_book;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic generator of contact names for benchmarks. Name is first name and last name picked with Zipf
+ * distribution, like in real phone books where few names are very common and most are rare.
+ * Repeated name gets a number ("Ivan Petrov 2"), so every generated name is unique.
+ */
+final class NameGenerator {
+
+    /**
+     * Alphabet of generated names.
+     */
+    enum Alphabet {
+        LATIN, CYRILLIC
+    }
+
+    private static final String[] LATIN_FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+            "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+            "Christopher", "Nancy", "Daniel", "Lisa", "Matthew", "Betty", "Anthony", "Margaret", "Mark", "Sandra",
+            "Donald", "Ashley", "Steven", "Kimberly", "Paul", "Emily", "Andrew", "Donna", "Joshua", "Michelle"};
+    private static final String[] LATIN_LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+            "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores"};
+    //Cyrillic names are escaped, so sources compile with any default encoding
+    private static final String[] CYRILLIC_FIRST_NAMES = {
+            "\u0410\u043b\u0435\u043a\u0441\u0430\u043d\u0434\u0440", "\u0415\u043b\u0435\u043d\u0430",
+            "\u0421\u0435\u0440\u0433\u0435\u0439", "\u041e\u043b\u044c\u0433\u0430",
+            "\u0414\u043c\u0438\u0442\u0440\u0438\u0439", "\u041d\u0430\u0442\u0430\u043b\u044c\u044f",
+            "\u0410\u043d\u0434\u0440\u0435\u0439", "\u0422\u0430\u0442\u044c\u044f\u043d\u0430",
+            "\u0410\u043b\u0435\u043a\u0441\u0435\u0439", "\u0418\u0440\u0438\u043d\u0430",
+            "\u041c\u0430\u043a\u0441\u0438\u043c", "\u0421\u0432\u0435\u0442\u043b\u0430\u043d\u0430",
+            "\u0415\u0432\u0433\u0435\u043d\u0438\u0439", "\u0410\u043d\u043d\u0430", "\u0418\u0432\u0430\u043d",
+            "\u041c\u0430\u0440\u0438\u044f", "\u041c\u0438\u0445\u0430\u0438\u043b",
+            "\u0415\u043a\u0430\u0442\u0435\u0440\u0438\u043d\u0430", "\u0410\u0440\u0442\u0451\u043c",
+            "\u042e\u043b\u0438\u044f", "\u0412\u043b\u0430\u0434\u0438\u043c\u0438\u0440",
+            "\u0410\u043d\u0430\u0441\u0442\u0430\u0441\u0438\u044f", "\u041d\u0438\u043a\u043e\u043b\u0430\u0439",
+            "\u041c\u0430\u0440\u0438\u043d\u0430", "\u041f\u0430\u0432\u0435\u043b",
+            "\u041b\u044e\u0434\u043c\u0438\u043b\u0430", "\u0420\u043e\u043c\u0430\u043d",
+            "\u0413\u0430\u043b\u0438\u043d\u0430", "\u0418\u0433\u043e\u0440\u044c",
+            "\u0412\u0430\u043b\u0435\u043d\u0442\u0438\u043d\u0430", "\u041e\u043b\u0435\u0433",
+            "\u041d\u0430\u0434\u0435\u0436\u0434\u0430", "\u0412\u0438\u043a\u0442\u043e\u0440",
+            "\u0414\u0430\u0440\u044c\u044f", "\u041d\u0438\u043a\u0438\u0442\u0430",
+            "\u041a\u0441\u0435\u043d\u0438\u044f", "\u0414\u0435\u043d\u0438\u0441", "\u0412\u0435\u0440\u0430",
+            "\u0415\u0433\u043e\u0440", "\u0412\u0430\u043b\u0435\u0440\u0438\u044f"};
+    private static final String[] CYRILLIC_LAST_NAMES = {
+            "\u0418\u0432\u0430\u043d\u043e\u0432", "\u0421\u043c\u0438\u0440\u043d\u043e\u0432",
+            "\u041a\u0443\u0437\u043d\u0435\u0446\u043e\u0432", "\u041f\u043e\u043f\u043e\u0432",
+            "\u0412\u0430\u0441\u0438\u043b\u044c\u0435\u0432", "\u041f\u0435\u0442\u0440\u043e\u0432",
+            "\u0421\u043e\u043a\u043e\u043b\u043e\u0432", "\u041c\u0438\u0445\u0430\u0439\u043b\u043e\u0432",
+            "\u041d\u043e\u0432\u0438\u043a\u043e\u0432", "\u0424\u0451\u0434\u043e\u0440\u043e\u0432",
+            "\u041c\u043e\u0440\u043e\u0437\u043e\u0432", "\u0412\u043e\u043b\u043a\u043e\u0432",
+            "\u0410\u043b\u0435\u043a\u0441\u0435\u0435\u0432", "\u041b\u0435\u0431\u0435\u0434\u0435\u0432",
+            "\u0421\u0435\u043c\u0451\u043d\u043e\u0432", "\u0415\u0433\u043e\u0440\u043e\u0432",
+            "\u041f\u0430\u0432\u043b\u043e\u0432", "\u041a\u043e\u0437\u043b\u043e\u0432",
+            "\u0421\u0442\u0435\u043f\u0430\u043d\u043e\u0432", "\u041d\u0438\u043a\u043e\u043b\u0430\u0435\u0432",
+            "\u041e\u0440\u043b\u043e\u0432", "\u0410\u043d\u0434\u0440\u0435\u0435\u0432",
+            "\u041c\u0430\u043a\u0430\u0440\u043e\u0432", "\u041d\u0438\u043a\u0438\u0442\u0438\u043d",
+            "\u0417\u0430\u0445\u0430\u0440\u043e\u0432", "\u0417\u0430\u0439\u0446\u0435\u0432",
+            "\u0421\u043e\u043b\u043e\u0432\u044c\u0451\u0432", "\u0411\u043e\u0440\u0438\u0441\u043e\u0432",
+            "\u042f\u043a\u043e\u0432\u043b\u0435\u0432", "\u0413\u0440\u0438\u0433\u043e\u0440\u044c\u0435\u0432",
+            "\u0420\u043e\u043c\u0430\u043d\u043e\u0432", "\u0412\u043e\u0440\u043e\u0431\u044c\u0451\u0432",
+            "\u0421\u0435\u0440\u0433\u0435\u0435\u0432", "\u041a\u0443\u0437\u044c\u043c\u0438\u043d",
+            "\u0424\u0440\u043e\u043b\u043e\u0432",
+            "\u0410\u043b\u0435\u043a\u0441\u0430\u043d\u0434\u0440\u043e\u0432",
+            "\u0414\u043c\u0438\u0442\u0440\u0438\u0435\u0432", "\u041a\u043e\u0440\u043e\u043b\u0451\u0432",
+            "\u0413\u0443\u0441\u0435\u0432", "\u041a\u0438\u0441\u0435\u043b\u0451\u0432"};
+
+    private final String[] firstNames;
+    private final String[] lastNames;
+    private final double[] cumulativeWeights;
+    private final Random random;
+    private final Map<String, Integer> nameCounts = new HashMap<>();
+
+    /**
+     * Creates generator.
+     *
+     * @param alphabet alphabet of names ({@link Alphabet} enum)
+     * @param seed     seed of random numbers, same seed gives same names (long)
+     */
+    NameGenerator(Alphabet alphabet, long seed) {
+        this.firstNames = alphabet == Alphabet.LATIN ? LATIN_FIRST_NAMES : CYRILLIC_FIRST_NAMES;
+        this.lastNames = alphabet == Alphabet.LATIN ? LATIN_LAST_NAMES : CYRILLIC_LAST_NAMES;
+        this.random = new Random(seed);
+
+        //Zipf weights: name of rank k is k times less common than the most common one
+        cumulativeWeights = new double[firstNames.length];
+        double sum = 0;
+        for (int rank = 1; rank <= cumulativeWeights.length; rank++) {
+            sum += 1.0 / rank;
+            cumulativeWeights[rank - 1] = sum;
+        }
+    }
+
+    /**
+     * @return next unique name (String)
+     */
+    String nextName() {
+        String name = pick(firstNames) + ' ' + pick(lastNames);
+        int count = nameCounts.merge(name, 1, Integer::sum);
+        return count == 1 ? name : name + ' ' + count;
+    }
+
+    /**
+     * @param count number of names (int)
+     * @return next unique names (array of Strings)
+     */
+    String[] nextNames(int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = nextName();
+        }
+        return names;
+    }
+
+    /**
+     * Generates partial search query the way users type it: beginning or middle of a common name,
+     * 2 to 4 characters long.
+     *
+     * @return part of name (String)
+     */
+    String nextQuery() {
+        String word = random.nextBoolean() ? pick(firstNames) : pick(lastNames);
+        int length = 2 + random.nextInt(Math.min(3, word.length() - 1));
+        int start = random.nextInt(word.length() - length + 1);
+        return word.substring(start, start + length);
+    }
+
+    private String pick(String[] words) {
+        double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] < point) low = middle + 1;
+            else high = middle;
+        }
+        return words[low];
+    }
+}
@@ -0,0 +1,55 @@
+package phone_book;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all phone book benchmarks with allocation profiler (same as "-prof gc" on command line) and writes
+ * results to {@link #RESULT_FILE} in JSON, so results of two revisions can be compared to catch regressions.
+ * Benchmarks need JMH (org.openjdk.jmh:jmh-core and jmh-generator-annprocess) on class path. Arguments are
+ * regular expressions of benchmarks to run, all benchmarks run if there are none:
+ * <pre>
+ *     java -cp ... phone_book.PhoneBookBenchmarks PhoneBookReadBenchmark.getContactByNameExact
+ * </pre>
+ *
+ * @see PhoneBookReadBenchmark
+ * @see PhoneBookWriteBenchmark
+ * @see PhoneBookConcurrentWriteBenchmark
+ */
+public final class PhoneBookBenchmarks {
+
+    public static final String RESULT_FILE = "phone-book-benchmarks.json";
+
+    private PhoneBookBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(PhoneBookReadBenchmark.class.getSimpleName());
+            builder.include(PhoneBookWriteBenchmark.class.getSimpleName());
+            builder.include(PhoneBookConcurrentWriteBenchmark.class.getSimpleName());
+        }
+        for (String pattern : args) {
+            builder.include(pattern);
+        }
+        Options options = builder
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE)
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * @param i number of phone (int)
+     * @return unique valid phone number for every i (String)
+     */
+    static String phone(int i) {
+        return "+1" + (10_000_000_000L + ((long) i - Integer.MIN_VALUE));
+    }
+}
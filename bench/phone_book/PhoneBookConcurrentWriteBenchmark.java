@@ -0,0 +1,96 @@
+package phone_book;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write scaling benchmarks of concurrent {@link PhoneBook}: throughput of adding contacts and phones from one thread
+ * and from as many threads as there are cores, so the two results show how writes scale with cores. Query cache
+ * is enabled and holds short queries, so every add also goes through cache invalidation. Names of all writers
+ * share their first letters, so the hottest grams of name index are shared by all threads.
+ * Every iteration starts with a fresh phone book of {@link #SIZE} contacts.
+ *
+ * @see PhoneBookBenchmarks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms16g", "-Xmx16g"})
+public class PhoneBookConcurrentWriteBenchmark {
+
+    static final int SIZE = 100000;
+
+    private static final int CACHE_CAPACITY = 1024;
+
+    private final AtomicInteger writerCount = new AtomicInteger();
+    private PhoneBook phoneBook;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void generateNames() {
+        names = new NameGenerator(NameGenerator.Alphabet.LATIN, 42).nextNames(SIZE);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        phoneBook = new PhoneBook(true);
+        for (int i = 0; i < names.length; i++) {
+            phoneBook.addContact(names[i], PhoneBookBenchmarks.phone(i));
+        }
+        phoneBook.setQueryCacheCapacity(CACHE_CAPACITY);
+        for (int i = 0; i < CACHE_CAPACITY; i++) {
+            phoneBook.getContactByName(names[i].substring(0, Math.min(2, names[i].length())));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void addContactOneThread(Writer writer) {
+        writer.addContact(phoneBook);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void addContactAllThreads(Writer writer) {
+        writer.addContact(phoneBook);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void addPhoneOneThread(Writer writer) {
+        writer.addPhone(phoneBook, names);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void addPhoneAllThreads(Writer writer) {
+        writer.addPhone(phoneBook, names);
+    }
+
+    /**
+     * Writer thread. Every writer adds its own contacts and phones, so writers never add the same one.
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+        private int writerIndex;
+        private int addIndex;
+
+        @Setup(Level.Trial)
+        public void setUp(PhoneBookConcurrentWriteBenchmark benchmark) {
+            writerIndex = benchmark.writerCount.getAndIncrement();
+        }
+
+        private void addContact(PhoneBook phoneBook) {
+            phoneBook.addContact("Writer " + writerIndex + " contact " + addIndex++);
+        }
+
+        private void addPhone(PhoneBook phoneBook, String[] names) {
+            int i = addIndex++;
+            phoneBook.addPhoneToContact(names[i % names.length], PhoneBookBenchmarks.phone(SIZE + i * 256 + writerIndex));
+        }
+    }
+}
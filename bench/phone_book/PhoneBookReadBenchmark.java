@@ -0,0 +1,73 @@
+package phone_book;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup benchmarks of {@link PhoneBook}: exact lookup by name, full partial search and first page of partial
+ * search, on phone books of 1K, 100K and 10M contacts with Latin and Cyrillic names.
+ * Throughput mode shows operations per microsecond, sample time mode shows latency percentiles.
+ * Phone book of 10M contacts needs a large heap, so forks get 16 GB.
+ *
+ * @see PhoneBookBenchmarks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms16g", "-Xmx16g"})
+public class PhoneBookReadBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"LATIN", "CYRILLIC"})
+    private NameGenerator.Alphabet alphabet;
+
+    private PhoneBook phoneBook;
+    private String[] exactQueries;
+    private String[] partialQueries;
+    private int queryIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NameGenerator generator = new NameGenerator(alphabet, 42);
+        String[] names = generator.nextNames(size);
+        phoneBook = new PhoneBook();
+        for (int i = 0; i < names.length; i++) {
+            phoneBook.addContact(names[i], PhoneBookBenchmarks.phone(i));
+        }
+
+        exactQueries = new String[QUERY_COUNT];
+        partialQueries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            exactQueries[i] = names[(int) ((long) i * names.length / QUERY_COUNT)];
+            partialQueries[i] = generator.nextQuery();
+        }
+    }
+
+    @Benchmark
+    public String getContactByNameExact() {
+        return phoneBook.getContactByName(exactQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public String getContactByNamePartial() {
+        return phoneBook.getContactByName(partialQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public ContactPage findContactsFirstPage() {
+        return phoneBook.findContacts(partialQueries[nextQuery()], null, PAGE_SIZE);
+    }
+
+    private int nextQuery() {
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queryIndex;
+    }
+}
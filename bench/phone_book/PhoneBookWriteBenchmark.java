@@ -0,0 +1,114 @@
+package phone_book;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write benchmarks of {@link PhoneBook}: adding new contacts to a phone book of 1K, 100K and 10M contacts,
+ * and adding phones to contacts which already have many phones. Every measured iteration is a batch of
+ * {@link #BATCH_SIZE} adds, and what it added is removed after the iteration, so every iteration starts
+ * with the same phone book. Number of phones per contact is a parameter of {@link ContactsWithManyPhones} state,
+ * so it multiplies only the benchmark adding phones.
+ *
+ * @see PhoneBookBenchmarks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = PhoneBookWriteBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = PhoneBookWriteBenchmark.BATCH_SIZE)
+@Fork(value = 1, jvmArgsAppend = {"-Xms16g", "-Xmx16g"})
+public class PhoneBookWriteBenchmark {
+
+    static final int BATCH_SIZE = 10000;
+
+    private static final int CONTACTS_WITH_MANY_PHONES = 1000;
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"LATIN", "CYRILLIC"})
+    private NameGenerator.Alphabet alphabet;
+
+    private PhoneBook phoneBook;
+    private String[] names;
+    private String[] newNames;
+    private int addIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NameGenerator generator = new NameGenerator(alphabet, 42);
+        names = generator.nextNames(size);
+        phoneBook = new PhoneBook();
+        for (int i = 0; i < names.length; i++) {
+            phoneBook.addContact(names[i], PhoneBookBenchmarks.phone(i));
+        }
+        newNames = generator.nextNames(BATCH_SIZE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeAdded() {
+        for (int i = 0; i < addIndex; i++) {
+            phoneBook.removeContact(newNames[i]);
+        }
+        phoneBook.compact();
+        addIndex = 0;
+    }
+
+    @Benchmark
+    public void addContact() {
+        phoneBook.addContact(newNames[addIndex++]);
+    }
+
+    @Benchmark
+    public void addContactWithPhone() {
+        int i = addIndex++;
+        phoneBook.addContact(newNames[i], PhoneBookBenchmarks.phone(-1 - i));
+    }
+
+    @Benchmark
+    public void addPhoneToContact(ContactsWithManyPhones contacts) {
+        int i = contacts.phoneIndex++;
+        phoneBook.addPhoneToContact(contacts.names[i % contacts.names.length], ContactsWithManyPhones.addedPhone(i));
+    }
+
+    /**
+     * First contacts of the phone book, given many phones before the trial.
+     */
+    @State(Scope.Benchmark)
+    public static class ContactsWithManyPhones {
+
+        @Param({"1", "16", "256"})
+        private int phonesPerContact;
+
+        private PhoneBook phoneBook;
+        private String[] names;
+        private int phoneIndex;
+
+        @Setup(Level.Trial)
+        public void setUp(PhoneBookWriteBenchmark benchmark) {
+            phoneBook = benchmark.phoneBook;
+            names = new String[Math.min(CONTACTS_WITH_MANY_PHONES, benchmark.size)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = benchmark.names[i];
+                for (int j = 1; j < phonesPerContact; j++) {
+                    phoneBook.addPhoneToContact(names[i],
+                            PhoneBookBenchmarks.phone(benchmark.size + i * phonesPerContact + j));
+                }
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void removeAdded() {
+            for (int i = 0; i < phoneIndex; i++) {
+                phoneBook.removePhone(names[i % names.length], addedPhone(i));
+            }
+            phoneIndex = 0;
+        }
+
+        private static String addedPhone(int i) {
+            return PhoneBookBenchmarks.phone(Integer.MIN_VALUE + i);
+        }
+    }
+}
@@ -1,8 +1,15 @@
 import geometry.*;
+import my_enum.MyGeometryEnum;
+import phone_book.Contact;
+import phone_book.ContactPage;
 import phone_book.PhoneBook;
+import phone_book.PhoneBookMetrics;
+import phone_book.PhoneBookSnapshot;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class App {
 
@@ -17,6 +24,9 @@ public class App {
 
         System.out.println("\n|======\n| Phone book test\n|======");
 
+        phoneBook.setQueryCacheCapacity(100);
+        phoneBook.setMetricsEnabled(true);
+
         phoneBook.addContact("Vladimir");
         System.out.println("\n-->Expecting empty contact Vladimir");
         System.out.println(phoneBook);
@@ -25,20 +35,21 @@ public class App {
         System.out.println(phoneBook);
         phoneBook.addContact("Vladimir", "89123334455");
         phoneBook.addPhoneToContact("Vladimir", "89123334455");
-        phoneBook.addPhoneToContact("Vladimir", "89123334455");
-        System.out.println("-->Expecting contact Vladimir with number 89123334455");
+        phoneBook.addPhoneToContact("Vladimir", "+7 912 333-44-55");
+        System.out.println("-->Expecting contact Vladimir with number +79123334455");
         System.out.println(phoneBook);
         phoneBook.addPhoneToContact("Vladimir", "+79119998877");
-        System.out.println("-->Expecting contact Vladimir with numbers 89123334455 and +79119998877");
+        System.out.println("-->Expecting contact Vladimir with numbers +79123334455 and +79119998877");
         System.out.println(phoneBook);
 
         phoneBook.addContact("Valeriya", "89115556677");
-        System.out.println("-->Expecting contact Vladimir with numbers 89123334455 and +79119998877 and Valeriya with number 89115556677");
+        System.out.println("-->Expecting contact Vladimir with numbers +79123334455 and +79119998877 and Valeriya with number +79115556677");
         System.out.println(phoneBook);
 
-        System.out.println("-->Expecting number 89115556677");
+        phoneBook.addPhoneToContact("Valeriya", "8 (911) 555-66-77");
+        System.out.println("-->Expecting number +79115556677");
         System.out.println(phoneBook.getContactByName("Valeriya"));
-        System.out.println("-->Expecting list of numbers 89123334455 and +79119998877");
+        System.out.println("-->Expecting list of numbers +79123334455 and +79119998877");
         System.out.println(phoneBook.getContactByName("Vladimir"));
 
         phoneBook.addContact("Vladislav", "88005553535");
@@ -46,9 +57,64 @@ public class App {
         System.out.println(phoneBook.getContactByName("V"));
         System.out.println("-->Expecting list of contacts Vladimir, Vladislav");
         System.out.println(phoneBook.getContactByName("Vlad"));
+        System.out.println("-->Expecting list of contacts starting with Vl: Vladimir, Vladislav");
+        System.out.println(phoneBook.getContactsByPrefix("Vl"));
+        System.out.println("-->Expecting list of contacts containing dim: Vladimir");
+        System.out.println(phoneBook.getContactByName("dim"));
 
         System.out.println("-->Expecting null");
         System.out.println(phoneBook.getContactByName("Egor"));
+
+        System.out.println("-->Expecting contact Valeriya with number +79115556677");
+        System.out.println(phoneBook.findContact("Valeriya"));
+        ContactPage page = phoneBook.findContacts("V", null, 2);
+        System.out.println("-->Expecting page with contacts Valeriya, Vladimir");
+        System.out.println(page.getContacts());
+        System.out.println("-->Expecting page with contact Vladislav");
+        System.out.println(phoneBook.findContacts("V", page.getNextCursor(), 2).getContacts());
+        System.out.println("-->Expecting closest contact to Vladmir: Vladimir");
+        System.out.println(phoneBook.findSimilarContacts("Vladmir", 2));
+
+        phoneBook.addContact("Vladislava", "88005553535");
+        System.out.println("-->Expecting owners of 88005553535: Vladislav, Vladislava");
+        System.out.println(phoneBook.getContactsByPhone("88005553535"));
+        System.out.println("-->Expecting owner of 89123334455: Vladimir");
+        System.out.println(phoneBook.getContactsByPhone("89123334455"));
+        System.out.println("-->Expecting null");
+        System.out.println(phoneBook.getContactsByPhone("80000000000"));
+        System.out.println("-->Expecting owners of numbers starting with 8911: Valeriya, Vladimir");
+        System.out.println(phoneBook.getContactsByPhonePrefix("8911"));
+
+        System.out.println("-->Expecting list of contacts Vladimir, Vladislav, Vladislava twice");
+        System.out.println(phoneBook.getContactByName("Vlad"));
+        System.out.println(phoneBook.getContactByName("Vlad"));
+        System.out.println("-->Expecting query cache with 1 hit: cached Vlad was dropped when Vladislava was added");
+        System.out.println(phoneBook.getQueryCache());
+
+        PhoneBookSnapshot snapshot = phoneBook.snapshot();
+        phoneBook.addContact("Egor", "+79001112233");
+        System.out.println("-->Expecting Egor to be found in phone book, but not in snapshot taken before he was added");
+        System.out.println(phoneBook.findContact("Egor"));
+        System.out.println(snapshot.findContact("Egor"));
+
+        phoneBook.mergeContacts("Vladislav", "Vladislava");
+        phoneBook.removePhone("Valeriya", "8 (911) 555-66-77");
+        System.out.println("-->Expecting Vladislava merged into Vladislav, and Valeriya without phones");
+        System.out.println(phoneBook.getContactByName("Vlad"));
+        System.out.println(phoneBook.getContactByName("Valeriya"));
+        phoneBook.removeContact("Egor");
+        System.out.println("-->Expecting null twice: Egor is removed");
+        System.out.println(phoneBook.getContactByName("Egor"));
+        System.out.println(phoneBook.getContactsByPhone("+79001112233"));
+        phoneBook.addContact("vasily", "+79004445566");
+        System.out.println("-->Expecting contacts from Va to Vl in alphabetical order: Valeriya, vasily, Vladimir, Vladislav");
+        System.out.println(phoneBook.listContacts("Va", "Vl").map(Contact::getName).collect(Collectors.toList()));
+        System.out.println("-->Expecting contacts containing VA in any case: Valeriya, vasily");
+        System.out.println(phoneBook.getContactsContainingIgnoreCase("VA"));
+        System.out.println("-->Expecting numbers of calls of every operation used above");
+        System.out.println(phoneBook.getMetrics());
+        System.out.println("-->Expecting statistics of getContactByName calls that fell back to partial search");
+        System.out.println(phoneBook.getMetrics().getStats(PhoneBookMetrics.Operation.GET_PARTIAL));
     }
 
     public static void geometryTest() {
@@ -85,5 +151,40 @@ public class App {
             System.out.println(figure.getArea());
             System.out.println(figure);
         }
+
+        FigureBatch figureBatch = new FigureBatch(figureList);
+        System.out.println("\n-->Expecting perimeters and areas of squares, same as above");
+        System.out.println(Arrays.toString(figureBatch.getPerimeters(MyGeometryEnum.SQUARE)));
+        System.out.println(Arrays.toString(figureBatch.getAreas(MyGeometryEnum.SQUARE)));
+        System.out.println("-->Expecting total area of all figures");
+        System.out.println(figureBatch.getTotalArea());
+
+        SpatialIndex<GenericGeometricFigure> spatialIndex = new SpatialIndex<>();
+        for (GenericGeometricFigure figure : figureList) {
+            spatialIndex.add(figure);
+        }
+        System.out.println("-->Expecting figures which bounding boxes cover (-9, 2): big circle, big square and two parallelograms");
+        System.out.println(spatialIndex.query(new BoundingBox(-9, 2, -9, 2)));
+        System.out.println("-->Expecting two figures nearest to (3.3, 4.7): big circle covering it, then dot (3.3453, 4.768786)");
+        System.out.println(spatialIndex.nearest(3.3, 4.7, 2));
+
+        System.out.println("-->Expecting statistics of every figure type: total, min and max of areas and perimeters, and histogram of perimeters");
+        for (FigureStatistics statistics : FigureAggregator.aggregate(figureList).values()) {
+            System.out.println(statistics);
+        }
+
+        List<GenericGeometricFigure> collidingFigures = List.of(new Triangle(0, 0, 1, 0, 0, 1), new Square(0, 0, 1),
+                new Circle(5, 5, 1), new Line(3, 5, 7, 5), new Dot(10, 10));
+        System.out.println("-->Expecting intersecting pairs: triangle and square, circle and line crossing it");
+        System.out.println(CollisionDetector.findIntersections(collidingFigures));
+        System.out.println("-->Expecting false: line passes by the circle");
+        System.out.println(CollisionDetector.intersects(new Circle(0, 0, 1), new Line(1, 1, 2, 2)));
+
+        Polygon hull = ConvexHull.of(new double[]{0, 4, 2, 4, 0, 1, 3}, new double[]{0, 0, 1, 4, 4, 2, 3});
+        System.out.println("-->Expecting convex hull of seven dots: square with vertexes (0, 0), (4, 0), (4, 4), (0, 4)");
+        System.out.println(hull);
+        System.out.println("-->Expecting perimeter 16 and area 16 of the hull");
+        System.out.println(hull.getPerimeter());
+        System.out.println(hull.getArea());
     }
 }
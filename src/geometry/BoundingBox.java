@@ -0,0 +1,153 @@
+package geometry;
+
+import java.util.Objects;
+
+/**
+ * Axis-aligned rectangle enclosing a geometric figure, defined by its minimal and maximal X and Y coordinates.
+ * Bounding box is immutable. It is used as a cheap first check of where figure lies: if boxes of two figures don't
+ * intersect, figures don't intersect either.
+ *
+ * @see GenericGeometricFigure#getBoundingBox()
+ * @see SpatialIndex
+ */
+public final class BoundingBox {
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    /**
+     * Creates bounding box by its corners.
+     *
+     * @param minX minimal X coordinate (double)
+     * @param minY minimal Y coordinate (double)
+     * @param maxX maximal X coordinate (double)
+     * @param maxY maximal Y coordinate (double)
+     * @throws IllegalArgumentException if minimal coordinate is greater than maximal one
+     */
+    public BoundingBox(double minX, double minY, double maxX, double maxY) throws IllegalArgumentException {
+        if (!(minX <= maxX && minY <= maxY)) throw new IllegalArgumentException("Minimal coordinates of box must not exceed maximal ones!");
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Creates smallest bounding box enclosing given dots.
+     *
+     * @param dots dots (array of {@link Dot} objects)
+     * @return bounding box ({@link BoundingBox} object)
+     */
+    public static BoundingBox of(Dot... dots) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Dot dot : dots) {
+            minX = Math.min(minX, dot.getX());
+            minY = Math.min(minY, dot.getY());
+            maxX = Math.max(maxX, dot.getX());
+            maxY = Math.max(maxY, dot.getY());
+        }
+        return new BoundingBox(minX, minY, maxX, maxY);
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public double getWidth() {
+        return maxX - minX;
+    }
+
+    public double getHeight() {
+        return maxY - minY;
+    }
+
+    /**
+     * @param other other box ({@link BoundingBox} object)
+     * @return true if boxes have at least one common point, touching boxes intersect (boolean)
+     */
+    public boolean intersects(BoundingBox other) {
+        return minX <= other.maxX && other.minX <= maxX && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    /**
+     * @param other other box ({@link BoundingBox} object)
+     * @return true if other box lies inside this one, borders included (boolean)
+     */
+    public boolean contains(BoundingBox other) {
+        return minX <= other.minX && other.maxX <= maxX && minY <= other.minY && other.maxY <= maxY;
+    }
+
+    /**
+     * @return true if point lies inside this box, borders included (boolean)
+     */
+    public boolean contains(double x, double y) {
+        return minX <= x && x <= maxX && minY <= y && y <= maxY;
+    }
+
+    /**
+     * @param other other box ({@link BoundingBox} object)
+     * @return smallest box enclosing both boxes ({@link BoundingBox} object)
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+    }
+
+    /**
+     * Calculates distance from point to the closest point of this box.
+     *
+     * @return distance, zero if point is inside the box (double)
+     */
+    public double distanceTo(double x, double y) {
+        return Math.sqrt(distanceSquaredTo(x, y));
+    }
+
+    /**
+     * Same as {@link #distanceTo(double, double)}, but without square root extraction, to compare distances.
+     *
+     * @return squared distance (double)
+     */
+    double distanceSquaredTo(double x, double y) {
+        double dx = Math.max(0, Math.max(minX - x, x - maxX));
+        double dy = Math.max(0, Math.max(minY - y, y - maxY));
+        return dx * dx + dy * dy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BoundingBox that = (BoundingBox) o;
+        return Double.compare(that.minX, minX) == 0 && Double.compare(that.minY, minY) == 0
+                && Double.compare(that.maxX, maxX) == 0 && Double.compare(that.maxY, maxY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minX, minY, maxX, maxY);
+    }
+
+    @Override
+    public String toString() {
+        return "box: (" +
+                "from (" + minX + ", " + minY + ')' +
+                ", to (" + maxX + ", " + maxY + "))";
+    }
+}
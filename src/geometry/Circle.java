@@ -39,6 +39,14 @@ public class Circle extends GenericGeometricFigure {
         this(new Dot(centerX, centerY), radius);
     }
 
+    public Dot getCenter() {
+        return center;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
     /**
      * Calculates length of circle arc
      *
@@ -59,6 +67,13 @@ public class Circle extends GenericGeometricFigure {
         return Math.PI * Math.pow(radius, 2);
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        double absRadius = Math.abs(radius);
+        return new BoundingBox(center.getX() - absRadius, center.getY() - absRadius,
+                center.getX() + absRadius, center.getY() + absRadius);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,399 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Detection of intersecting figures. Figures are closed and filled: circle is a disc, polygon includes its inner
+ * area, and touching figures intersect. Supported figures are {@link Dot}, {@link Line}, {@link Circle},
+ * {@link Triangle}, {@link Quadrangle} subclasses and convex {@link Polygon}s.
+ * <p>
+ * Search of all intersecting pairs works in two phases. Broad phase is sweep and prune: bounding boxes of figures
+ * are sorted by their start along the axis where figures are spread wider, plane is cut across that axis into strips,
+ * and in every strip each box is compared only with boxes starting before it ends. Only pairs with intersecting
+ * boxes get to narrow phase, which checks figures exactly:
+ * <ul>
+ * <li>polygons, lines and dots by separating axis theorem: convex figures don't intersect if and only if their
+ * projections on normal of some side of either figure don't overlap;</li>
+ * <li>circle and polygon by distance from center of circle to the polygon;</li>
+ * <li>two lines by orientation of ends of each line relative to the other line.</li>
+ * </ul>
+ * Search takes O(n log n + k) time, where k is the number of pairs of boxes in one strip overlapping along the sweep
+ * axis, which is close to the number of intersecting pairs when figures are evenly spread.
+ *
+ * @see BoundingBox
+ */
+public final class CollisionDetector {
+
+    private CollisionDetector() {
+    }
+
+    /**
+     * Finds all pairs of intersecting figures.
+     *
+     * @param figures figures (Collection of {@link GenericGeometricFigure} objects)
+     * @param <T>     type of figures
+     * @return intersecting pairs in no particular order (List of {@link FigurePair} objects)
+     * @throws IllegalArgumentException if some figure has unknown type or is a concave polygon
+     */
+    public static <T extends GenericGeometricFigure> List<FigurePair<T>> findIntersections(Collection<T> figures)
+            throws IllegalArgumentException {
+        List<Entry<T>> entries = new ArrayList<>(figures.size());
+        for (T figure : figures) {
+            entries.add(new Entry<>(figure, entries.size()));
+        }
+        boolean sweepX = isSpreadWiderAlongX(entries);
+        for (Entry<T> entry : entries) {
+            BoundingBox box = entry.box;
+            entry.start = sweepX ? box.getMinX() : box.getMinY();
+            entry.end = sweepX ? box.getMaxX() : box.getMaxY();
+            entry.crossStart = sweepX ? box.getMinY() : box.getMinX();
+            entry.crossEnd = sweepX ? box.getMaxY() : box.getMaxX();
+        }
+        entries.sort(Comparator.comparingDouble(entry -> entry.start));
+        Strips strips = new Strips(entries);
+
+        //bounds of boxes in sorted order are kept in arrays, so that the inner loop does not touch figures
+        int size = entries.size();
+        double[] starts = new double[size];
+        double[] ends = new double[size];
+        double[] crossStarts = new double[size];
+        double[] crossEnds = new double[size];
+        for (int i = 0; i < size; i++) {
+            Entry<T> entry = entries.get(i);
+            starts[i] = entry.start;
+            ends[i] = entry.end;
+            crossStarts[i] = entry.crossStart;
+            crossEnds[i] = entry.crossEnd;
+        }
+
+        List<FigurePair<T>> pairs = new ArrayList<>();
+        for (int strip = 0; strip < strips.count; strip++) {
+            int from = strips.offsets[strip];
+            int to = strips.offsets[strip + 1];
+            for (int a = from; a < to; a++) {
+                int i = strips.members[a];
+                //boxes are sorted by start, so all boxes after the first one starting behind this box end are too far
+                for (int b = a + 1; b < to && starts[strips.members[b]] <= ends[i]; b++) {
+                    int j = strips.members[b];
+                    if (crossStarts[j] > crossEnds[i] || crossStarts[i] > crossEnds[j]) continue;
+                    //pair of boxes lying in several strips is checked only in the strip where their overlap begins
+                    if (strips.stripOf(Math.max(crossStarts[i], crossStarts[j])) != strip) continue;
+                    Entry<T> entry = entries.get(i);
+                    Entry<T> other = entries.get(j);
+                    if (entry.shape().intersects(other.shape())) {
+                        pairs.add(entry.index < other.index
+                                ? new FigurePair<>(entry.figure, other.figure)
+                                : new FigurePair<>(other.figure, entry.figure));
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Checks whether two figures intersect.
+     *
+     * @param first  first figure ({@link GenericGeometricFigure} object)
+     * @param second second figure ({@link GenericGeometricFigure} object)
+     * @return true if figures have at least one common point (boolean)
+     * @throws IllegalArgumentException if some figure has unknown type or is a concave polygon
+     */
+    public static boolean intersects(GenericGeometricFigure first, GenericGeometricFigure second)
+            throws IllegalArgumentException {
+        return first.getBoundingBox().intersects(second.getBoundingBox())
+                && Shape.of(first).intersects(Shape.of(second));
+    }
+
+    /**
+     * Compares variances of box centers along X and Y axes.
+     */
+    private static boolean isSpreadWiderAlongX(List<? extends Entry<?>> entries) {
+        double sumX = 0, sumSquaresX = 0, sumY = 0, sumSquaresY = 0;
+        for (Entry<?> entry : entries) {
+            double centerX = (entry.box.getMinX() + entry.box.getMaxX()) / 2;
+            double centerY = (entry.box.getMinY() + entry.box.getMaxY()) / 2;
+            sumX += centerX;
+            sumSquaresX += centerX * centerX;
+            sumY += centerY;
+            sumSquaresY += centerY * centerY;
+        }
+        int count = Math.max(entries.size(), 1);
+        return sumSquaresX - sumX * sumX / count >= sumSquaresY - sumY * sumY / count;
+    }
+
+    private static class Entry<T extends GenericGeometricFigure> {
+        private final T figure;
+        private final int index;
+        private final BoundingBox box;
+        //bounds of box along the sweep axis and along the other axis
+        private double start;
+        private double end;
+        private double crossStart;
+        private double crossEnd;
+        private Shape shape;
+
+        private Entry(T figure, int index) {
+            this.figure = figure;
+            this.index = index;
+            this.box = figure.getBoundingBox();
+        }
+
+        /**
+         * Shapes are made only for figures which get to narrow phase.
+         */
+        private Shape shape() {
+            if (shape == null) shape = Shape.of(figure);
+            return shape;
+        }
+    }
+
+    /**
+     * Division of plane into strips across the sweep axis. Sweeping along one axis compares each box with all boxes
+     * overlapping it along that axis, wherever they are along the other axis, so evenly spread figures are swept
+     * in each strip separately. Box is placed into every strip it crosses, and strips are about twice as high
+     * as average box, so that most boxes lie in one or two strips.
+     */
+    private static class Strips {
+        private final double origin;
+        private final double height;
+        private final int count;
+        //members[offsets[s]] to members[offsets[s + 1] - 1] are indexes of boxes crossing strip s, sorted by start
+        private final int[] offsets;
+        private final int[] members;
+
+        private Strips(List<? extends Entry<?>> entries) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, extentSum = 0;
+            for (Entry<?> entry : entries) {
+                min = Math.min(min, entry.crossStart);
+                max = Math.max(max, entry.crossEnd);
+                extentSum += entry.crossEnd - entry.crossStart;
+            }
+            double range = max - min;
+            double stripHeight = 2 * extentSum / Math.max(entries.size(), 1);
+            //strips are not made much more numerous than figures, so that big figures are not copied into too many
+            int maxCount = (int) Math.sqrt(entries.size()) + 1;
+            int stripCount = stripHeight > 0 && range > 0 && Double.isFinite(range)
+                    ? (int) Math.max(1, Math.min(maxCount, range / stripHeight)) : 1;
+            this.origin = min;
+            this.height = range / stripCount;
+            this.count = stripCount;
+
+            this.offsets = new int[stripCount + 1];
+            for (Entry<?> entry : entries) {
+                for (int strip = stripOf(entry.crossStart); strip <= stripOf(entry.crossEnd); strip++) {
+                    offsets[strip + 1]++;
+                }
+            }
+            for (int strip = 0; strip < stripCount; strip++) {
+                offsets[strip + 1] += offsets[strip];
+            }
+            this.members = new int[offsets[stripCount]];
+            int[] filled = Arrays.copyOf(offsets, stripCount);
+            for (int i = 0; i < entries.size(); i++) {
+                Entry<?> entry = entries.get(i);
+                for (int strip = stripOf(entry.crossStart); strip <= stripOf(entry.crossEnd); strip++) {
+                    members[filled[strip]++] = i;
+                }
+            }
+        }
+
+        private int stripOf(double crossCoordinate) {
+            if (count == 1) return 0;
+            return Math.max(0, Math.min(count - 1, (int) ((crossCoordinate - origin) / height)));
+        }
+    }
+
+    /**
+     * Coordinates of figure prepared for narrow phase. Shape is either a disc, or a convex polygon
+     * given by its vertexes, where polygon of one vertex is a dot and polygon of two vertexes is a line.
+     */
+    private static class Shape {
+        private final double[] xs;
+        private final double[] ys;
+        //polygon has no inner area: it is a dot, a line or has all vertexes on one line
+        private final boolean degenerate;
+        private final boolean circle;
+        private final double radius;
+
+        private Shape(double[] xs, double[] ys, boolean circle, double radius) {
+            this.xs = xs;
+            this.ys = ys;
+            this.circle = circle;
+            this.radius = radius;
+            this.degenerate = !circle && doubleArea(xs, ys) == 0;
+        }
+
+        private static Shape of(GenericGeometricFigure figure) throws IllegalArgumentException {
+            if (figure instanceof Dot) {
+                Dot dot = (Dot) figure;
+                return new Shape(new double[]{dot.getX()}, new double[]{dot.getY()}, false, 0);
+            } else if (figure instanceof Line) {
+                Dot start = ((Line) figure).getLineStart();
+                Dot end = ((Line) figure).getLineEnd();
+                return new Shape(new double[]{start.getX(), end.getX()}, new double[]{start.getY(), end.getY()}, false, 0);
+            } else if (figure instanceof Circle) {
+                Dot center = ((Circle) figure).getCenter();
+                return new Shape(new double[]{center.getX()}, new double[]{center.getY()}, true, ((Circle) figure).getRadius());
+            } else if (figure instanceof Triangle) {
+                return polygon(((Triangle) figure).getVertexArray());
+            } else if (figure instanceof Quadrangle) {
+                return polygon(((Quadrangle) figure).getVertexArray());
+            } else if (figure instanceof Polygon) {
+                if (!((Polygon) figure).isConvex()) throw new IllegalArgumentException("Polygon must be convex!");
+                return polygon(((Polygon) figure).getVertexArray());
+            }
+            throw new IllegalArgumentException("Figure type is unknown: " + figure.getClass().getSimpleName() + '!');
+        }
+
+        private static Shape polygon(Dot[] vertexes) {
+            double[] xs = new double[vertexes.length];
+            double[] ys = new double[vertexes.length];
+            for (int i = 0; i < vertexes.length; i++) {
+                xs[i] = vertexes[i].getX();
+                ys[i] = vertexes[i].getY();
+            }
+            return new Shape(xs, ys, false, 0);
+        }
+
+        private boolean intersects(Shape other) {
+            if (circle && other.circle) {
+                double dx = xs[0] - other.xs[0];
+                double dy = ys[0] - other.ys[0];
+                double radiusSum = radius + other.radius;
+                return dx * dx + dy * dy <= radiusSum * radiusSum;
+            }
+            if (circle) return other.distanceSquaredTo(xs[0], ys[0]) <= radius * radius;
+            if (other.circle) return distanceSquaredTo(other.xs[0], other.ys[0]) <= other.radius * other.radius;
+            if (xs.length == 2 && other.xs.length == 2) {
+                return segmentsIntersect(xs[0], ys[0], xs[1], ys[1], other.xs[0], other.ys[0], other.xs[1], other.ys[1]);
+            }
+            return !hasSeparatingAxis(other);
+        }
+
+        /**
+         * Separating axis test. Normals of sides are enough for polygons with inner area. When both polygons
+         * are degenerate, they may lie on one line, and directions of sides and coordinate axes are checked too.
+         */
+        private boolean hasSeparatingAxis(Shape other) {
+            boolean checkDirections = degenerate && other.degenerate;
+            for (Shape shape : new Shape[]{this, other}) {
+                int count = shape.xs.length;
+                for (int i = 0; i < count; i++) {
+                    int next = (i + 1) % count;
+                    double dx = shape.xs[next] - shape.xs[i];
+                    double dy = shape.ys[next] - shape.ys[i];
+                    if (dx == 0 && dy == 0) continue;
+                    if (separates(-dy, dx, other)) return true;
+                    if (checkDirections && separates(dx, dy, other)) return true;
+                }
+            }
+            return checkDirections && (separates(1, 0, other) || separates(0, 1, other));
+        }
+
+        /**
+         * @return true if projections of this and other polygon on given axis don't overlap (boolean)
+         */
+        private boolean separates(double axisX, double axisY, Shape other) {
+            double[] projection = project(axisX, axisY);
+            double[] otherProjection = other.project(axisX, axisY);
+            return projection[1] < otherProjection[0] || otherProjection[1] < projection[0];
+        }
+
+        /**
+         * @return minimal and maximal projections of vertexes on given axis (array of 2 doubles)
+         */
+        private double[] project(double axisX, double axisY) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < xs.length; i++) {
+                double projection = xs[i] * axisX + ys[i] * axisY;
+                min = Math.min(min, projection);
+                max = Math.max(max, projection);
+            }
+            return new double[]{min, max};
+        }
+
+        /**
+         * @return squared distance from point to polygon, zero if point is inside (double)
+         */
+        private double distanceSquaredTo(double x, double y) {
+            int count = xs.length;
+            //all sides of degenerate polygon lie on one line, which "contains" every point of the line
+            if (count >= 3 && !degenerate && contains(x, y)) return 0;
+            double distance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                int next = (i + 1) % count;
+                distance = Math.min(distance, segmentDistanceSquared(x, y, xs[i], ys[i], xs[next], ys[next]));
+            }
+            return distance;
+        }
+
+        /**
+         * Point is inside of convex polygon if it lies on the same side of all sides of polygon.
+         */
+        private boolean contains(double x, double y) {
+            boolean hasLeft = false, hasRight = false;
+            for (int i = 0; i < xs.length; i++) {
+                int next = (i + 1) % xs.length;
+                double cross = cross(xs[i], ys[i], xs[next], ys[next], x, y);
+                if (cross > 0) hasLeft = true;
+                if (cross < 0) hasRight = true;
+            }
+            return !(hasLeft && hasRight);
+        }
+
+        private static double doubleArea(double[] xs, double[] ys) {
+            double doubleArea = 0;
+            for (int i = 0; i < xs.length; i++) {
+                int next = (i + 1) % xs.length;
+                doubleArea += xs[i] * ys[next] - xs[next] * ys[i];
+            }
+            return doubleArea;
+        }
+    }
+
+    /**
+     * @return cross product of vectors (a, b) and (a, c): positive if c is to the left of line from a to b,
+     * negative if to the right, zero if on the line (double)
+     */
+    private static double cross(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    private static boolean segmentsIntersect(double ax, double ay, double bx, double by,
+                                             double cx, double cy, double dx, double dy) {
+        double c1 = cross(ax, ay, bx, by, cx, cy);
+        double c2 = cross(ax, ay, bx, by, dx, dy);
+        double c3 = cross(cx, cy, dx, dy, ax, ay);
+        double c4 = cross(cx, cy, dx, dy, bx, by);
+        //ends of each segment lie on different sides of the other one
+        if ((c1 > 0 && c2 < 0 || c1 < 0 && c2 > 0) && (c3 > 0 && c4 < 0 || c3 < 0 && c4 > 0)) return true;
+        //segments touch: some end lies on the other segment
+        return c1 == 0 && onSegment(ax, ay, bx, by, cx, cy)
+                || c2 == 0 && onSegment(ax, ay, bx, by, dx, dy)
+                || c3 == 0 && onSegment(cx, cy, dx, dy, ax, ay)
+                || c4 == 0 && onSegment(cx, cy, dx, dy, bx, by);
+    }
+
+    /**
+     * @return true if point c, lying on line through a and b, is between a and b (boolean)
+     */
+    private static boolean onSegment(double ax, double ay, double bx, double by, double cx, double cy) {
+        return Math.min(ax, bx) <= cx && cx <= Math.max(ax, bx) && Math.min(ay, by) <= cy && cy <= Math.max(ay, by);
+    }
+
+    private static double segmentDistanceSquared(double x, double y, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        //position of point projection on the segment, from 0 at a to 1 at b
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((x - ax) * dx + (y - ay) * dy) / lengthSquared));
+        double distanceX = x - (ax + t * dx);
+        double distanceY = y - (ay + t * dy);
+        return distanceX * distanceX + distanceY * distanceY;
+    }
+}
@@ -0,0 +1,166 @@
+package geometry;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Builder of convex hull, the smallest convex {@link Polygon} enclosing given dots, by Andrew's monotone chain
+ * algorithm in O(n log n) time. Dots are sorted by X coordinate, then by Y coordinate, and lower and upper chains
+ * of hull are built by walking sorted dots there and back, dropping every vertex where chain turns clockwise.
+ * <p>
+ * Dots can be given by arrays of coordinates, so millions of them are processed without creating {@link Dot}
+ * objects or boxing: coordinates are replaced by their ranks among all X and all Y coordinates, and each dot is
+ * sorted as one long number made of two ranks. Before sorting, dots lying inside the octagon of dots extreme in
+ * eight directions are dropped in one linear pass (Akl-Toussaint heuristic), since they can't be hull vertexes,
+ * and for dots spread over an area only a small part of them is left to sort.
+ *
+ * @see Polygon
+ */
+public final class ConvexHull {
+
+    //directions of extreme dots, going counterclockwise
+    private static final double[][] DIRECTIONS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+
+    private ConvexHull() {
+    }
+
+    /**
+     * Builds convex hull of dots.
+     *
+     * @param dots dots (Collection of {@link Dot} objects)
+     * @return hull with vertexes going counterclockwise, dots lying on its sides are not vertexes ({@link Polygon} object)
+     * @throws IllegalArgumentException if all dots lie on one line or some coordinate is not finite
+     */
+    public static Polygon of(Collection<? extends Dot> dots) throws IllegalArgumentException {
+        double[] xs = new double[dots.size()];
+        double[] ys = new double[dots.size()];
+        int i = 0;
+        for (Dot dot : dots) {
+            xs[i] = dot.getX();
+            ys[i] = dot.getY();
+            i++;
+        }
+        return of(xs, ys);
+    }
+
+    /**
+     * Builds convex hull of dots given by their coordinates.
+     *
+     * @param xs X coordinates of dots (array of doubles)
+     * @param ys Y coordinates of dots in the same order (array of doubles)
+     * @return hull with vertexes going counterclockwise, dots lying on its sides are not vertexes ({@link Polygon} object)
+     * @throws IllegalArgumentException if arrays differ in length, all dots lie on one line or some coordinate
+     *                                  is not finite
+     */
+    public static Polygon of(double[] xs, double[] ys) throws IllegalArgumentException {
+        if (xs.length != ys.length) throw new IllegalArgumentException("Arrays of coordinates must be of equal length!");
+        for (int i = 0; i < xs.length; i++) {
+            if (!Double.isFinite(xs[i]) || !Double.isFinite(ys[i])) throw new IllegalArgumentException("Coordinates must be finite!");
+        }
+        double[][] candidates = dropInnerDots(xs, ys);
+        double[] candidateXs = candidates[0];
+        double[] candidateYs = candidates[1];
+        int count = candidateXs.length;
+        double[] sortedXs = candidateXs.clone();
+        double[] sortedYs = candidateYs.clone();
+        Arrays.sort(sortedXs);
+        Arrays.sort(sortedYs);
+        //binary search finds the same rank for equal coordinates, so sorting by ranks sorts by coordinates
+        long[] dots = new long[count];
+        for (int i = 0; i < count; i++) {
+            long xRank = Arrays.binarySearch(sortedXs, candidateXs[i]);
+            long yRank = Arrays.binarySearch(sortedYs, candidateYs[i]);
+            dots[i] = xRank << 32 | yRank;
+        }
+        Arrays.sort(dots);
+
+        //lower chain is built left to right and upper chain right to left, both end at the first dot of the other
+        double[] hullXs = new double[2 * count];
+        double[] hullYs = new double[2 * count];
+        int hullSize = 0;
+        for (int i = 0; i < count; i++) {
+            double x = sortedXs[(int) (dots[i] >>> 32)];
+            double y = sortedYs[(int) dots[i]];
+            while (hullSize >= 2 && !turnsLeft(hullXs, hullYs, hullSize, x, y)) hullSize--;
+            hullXs[hullSize] = x;
+            hullYs[hullSize] = y;
+            hullSize++;
+        }
+        int lowerSize = hullSize + 1;
+        for (int i = count - 2; i >= 0; i--) {
+            double x = sortedXs[(int) (dots[i] >>> 32)];
+            double y = sortedYs[(int) dots[i]];
+            while (hullSize >= lowerSize && !turnsLeft(hullXs, hullYs, hullSize, x, y)) hullSize--;
+            hullXs[hullSize] = x;
+            hullYs[hullSize] = y;
+            hullSize++;
+        }
+        //last vertex repeats the first one
+        hullSize--;
+        if (hullSize < 3) throw new IllegalArgumentException("Dots lying on one line have no convex hull!");
+        return new Polygon(Arrays.copyOf(hullXs, hullSize), Arrays.copyOf(hullYs, hullSize));
+    }
+
+    /**
+     * Finds dots extreme in each of {@link #DIRECTIONS}, which are hull dots going around the hull, and drops dots
+     * lying strictly inside the octagon made of them.
+     *
+     * @return X and Y coordinates of remaining dots (two arrays of doubles)
+     */
+    private static double[][] dropInnerDots(double[] xs, double[] ys) {
+        int count = xs.length;
+        if (count == 0) return new double[][]{xs, ys};
+        int[] extremes = new int[DIRECTIONS.length];
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            double dx = DIRECTIONS[d][0];
+            double dy = DIRECTIONS[d][1];
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                double projection = dx * xs[i] + dy * ys[i];
+                if (projection > max) {
+                    max = projection;
+                    extremes[d] = i;
+                }
+            }
+        }
+        double[] keptXs = new double[count];
+        double[] keptYs = new double[count];
+        int keptCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (isInside(xs, ys, extremes, xs[i], ys[i])) continue;
+            keptXs[keptCount] = xs[i];
+            keptYs[keptCount] = ys[i];
+            keptCount++;
+        }
+        return new double[][]{Arrays.copyOf(keptXs, keptCount), Arrays.copyOf(keptYs, keptCount)};
+    }
+
+    /**
+     * @return true if (x, y) lies to the left of every side of octagon, not on a side; false if octagon
+     * has no inner area (boolean)
+     */
+    private static boolean isInside(double[] xs, double[] ys, int[] extremes, double x, double y) {
+        boolean hasSide = false;
+        for (int d = 0; d < extremes.length; d++) {
+            int from = extremes[d];
+            int to = extremes[(d + 1) % extremes.length];
+            double sideX = xs[to] - xs[from];
+            double sideY = ys[to] - ys[from];
+            if (sideX == 0 && sideY == 0) continue;
+            if (sideX * (y - ys[from]) - sideY * (x - xs[from]) <= 0) return false;
+            hasSide = true;
+        }
+        return hasSide;
+    }
+
+    /**
+     * @return true if going from the last but one hull vertex through the last one to (x, y) is a left turn (boolean)
+     */
+    private static boolean turnsLeft(double[] hullXs, double[] hullYs, int hullSize, double x, double y) {
+        double ax = hullXs[hullSize - 2];
+        double ay = hullYs[hullSize - 2];
+        double bx = hullXs[hullSize - 1];
+        double by = hullYs[hullSize - 1];
+        return (bx - ax) * (y - ay) - (by - ay) * (x - ax) > 0;
+    }
+}
@@ -14,6 +14,7 @@ public class Dot extends GenericGeometricFigure {
 
     private double positionX;
     private double positionY;
+    private long moveCount;
 
     /**
      * Creates new {@link Dot} object with coordinates (x, y)
@@ -53,6 +54,14 @@ public class Dot extends GenericGeometricFigure {
     public void movePoint(double deltaX, double deltaY) {
         this.positionX += deltaX;
         this.positionY += deltaY;
+        this.moveCount++;
+    }
+
+    /**
+     * @return number of times dot was moved, used by figures to find out their cached measures are outdated (long)
+     */
+    long getMoveCount() {
+        return moveCount;
     }
 
     /**
@@ -75,6 +84,16 @@ public class Dot extends GenericGeometricFigure {
         return 0d;
     }
 
+    /**
+     * Returns bounding box of dot
+     *
+     * @return box of zero size in the dot position ({@link BoundingBox} object)
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(positionX, positionY, positionX, positionY);
+    }
+
     /**
      * Calculates distance between this point and another one. Not 100% accurate because of square root extraction.
      *
@@ -82,10 +101,9 @@ public class Dot extends GenericGeometricFigure {
      * @return distance (double)
      */
     public double calculateDistance(Dot otherDot) {
-        if (this.equals(otherDot)) return 0d;
-        double distanceX = Math.abs(this.positionX - otherDot.positionX);
-        double distanceY = Math.abs(this.positionY - otherDot.positionY);
-        return Math.sqrt(Math.pow(distanceX, 2d) + Math.pow(distanceY, 2d));
+        double distanceX = this.positionX - otherDot.positionX;
+        double distanceY = this.positionY - otherDot.positionY;
+        return Math.sqrt(distanceX * distanceX + distanceY * distanceY);
     }
 
     @Override
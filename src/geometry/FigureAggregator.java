@@ -0,0 +1,80 @@
+package geometry;
+
+import my_enum.MyGeometryEnum;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Aggregation of figure collections into {@link FigureStatistics} grouped by figure type ({@link MyGeometryEnum}).
+ * <p>
+ * Aggregation is a {@link Collector}, so it runs on parallel streams: fork-join pool splits the collection between
+ * worker threads, every part is collected into its own statistics without any locking or shared counters, and
+ * statistics of parts are merged pairwise when parts are joined. For large array-based collections, like
+ * {@link java.util.ArrayList}, work is shared evenly between all cores.
+ *
+ * @see FigureStatistics
+ */
+public final class FigureAggregator {
+
+    private FigureAggregator() {
+    }
+
+    /**
+     * Aggregates figures on all cores of common fork-join pool.
+     *
+     * @param figures figures (Collection of {@link GenericGeometricFigure} objects)
+     * @return statistics of every met type, declared types first in order of declaration (Map of
+     * {@link MyGeometryEnum} to {@link FigureStatistics})
+     */
+    public static Map<MyGeometryEnum, FigureStatistics> aggregate(Collection<? extends GenericGeometricFigure> figures) {
+        return figures.parallelStream().collect(byType());
+    }
+
+    /**
+     * Collector aggregating figures of stream. Figures which type is not a {@link MyGeometryEnum} are counted as
+     * {@link MyGeometryEnum#NOT_DEFINED}.
+     *
+     * @return collector giving statistics of every met type, declared types first in order of declaration, then
+     * types of subclasses ordered by name (Collector of {@link GenericGeometricFigure} objects)
+     */
+    public static Collector<GenericGeometricFigure, ?, Map<MyGeometryEnum, FigureStatistics>> byType() {
+        return Collector.of(
+                IdentityHashMap::new,
+                FigureAggregator::accumulate,
+                FigureAggregator::combine,
+                FigureAggregator::finish,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    private static void accumulate(Map<MyGeometryEnum, FigureStatistics> statistics, GenericGeometricFigure figure) {
+        MyGeometryEnum type = figure.type instanceof MyGeometryEnum ? (MyGeometryEnum) figure.type : MyGeometryEnum.NOT_DEFINED;
+        statistics.computeIfAbsent(type, FigureStatistics::new).accept(figure);
+    }
+
+    private static Map<MyGeometryEnum, FigureStatistics> combine(Map<MyGeometryEnum, FigureStatistics> left,
+                                                               Map<MyGeometryEnum, FigureStatistics> right) {
+        for (FigureStatistics rightStatistics : right.values()) {
+            FigureStatistics leftStatistics = left.putIfAbsent(rightStatistics.getType(), rightStatistics);
+            if (leftStatistics != null) leftStatistics.combine(rightStatistics);
+        }
+        return left;
+    }
+
+    private static Map<MyGeometryEnum, FigureStatistics> finish(Map<MyGeometryEnum, FigureStatistics> statistics) {
+        Map<MyGeometryEnum, FigureStatistics> orderedStatistics = new LinkedHashMap<>();
+        for (MyGeometryEnum type : MyGeometryEnum.values()) {
+            FigureStatistics typeStatistics = statistics.remove(type);
+            if (typeStatistics != null) orderedStatistics.put(type, typeStatistics);
+        }
+        //types made by subclasses of MyGeometryEnum are not declared, but are kept too
+        statistics.keySet().stream()
+                .sorted(Comparator.comparing(MyGeometryEnum::getName))
+                .forEach(type -> orderedStatistics.put(type, statistics.get(type)));
+        return orderedStatistics;
+    }
+}
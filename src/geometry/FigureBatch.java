@@ -0,0 +1,360 @@
+package geometry;
+
+import my_enum.MyGeometryEnum;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Columnar storage of many geometric figures. Instead of keeping every figure as an object graph of {@link Dot}s
+ * and {@link Line}s, batch keeps figures grouped by type ({@link MyGeometryEnum}) and stores each coordinate of
+ * a group in its own array of doubles: x coordinates of first vertexes of all triangles in one array, y coordinates
+ * in another, and so on. Perimeters and areas of a whole group are then computed by tight loops over these arrays,
+ * without virtual calls and pointer chasing, which JIT compiler turns into SIMD instructions.
+ * <p>
+ * {@link Polygon}s differ in number of vertexes, so they can't share fixed columns. Vertexes of all of them are stored
+ * one after another in two arrays of x and y coordinates, and an array of offsets marks where every polygon starts.
+ * <p>
+ * Perimeter of a polygon is the sum of its side lengths, and area is computed by shoelace formula, so results
+ * are equal to {@link GenericGeometricFigure#getPerimeter()} and {@link GenericGeometricFigure#getArea()}
+ * up to rounding. Figures are stored by value: moving a {@link Dot} after its figure is added does not change batch.
+ *
+ * @see GenericGeometricFigure
+ */
+public class FigureBatch {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<MyGeometryEnum, Column> columns = new LinkedHashMap<>();
+    private final PolygonColumn polygons = new PolygonColumn();
+
+    /**
+     * Creates empty batch.
+     */
+    public FigureBatch() {
+    }
+
+    /**
+     * Creates batch of given figures.
+     *
+     * @param figures figures to add (Collection of {@link GenericGeometricFigure} objects)
+     * @throws IllegalArgumentException if some figure has unknown type
+     */
+    public FigureBatch(Collection<? extends GenericGeometricFigure> figures) throws IllegalArgumentException {
+        for (GenericGeometricFigure figure : figures) {
+            add(figure);
+        }
+    }
+
+    /**
+     * Adds figure to the batch.
+     *
+     * @param figure figure ({@link GenericGeometricFigure} object)
+     * @throws IllegalArgumentException if figure has unknown type
+     */
+    public void add(GenericGeometricFigure figure) throws IllegalArgumentException {
+        if (figure instanceof Dot) {
+            Dot dot = (Dot) figure;
+            addDot(dot.getX(), dot.getY());
+        } else if (figure instanceof Line) {
+            Line line = (Line) figure;
+            addLine(line.getLineStart().getX(), line.getLineStart().getY(),
+                    line.getLineEnd().getX(), line.getLineEnd().getY());
+        } else if (figure instanceof Circle) {
+            Circle circle = (Circle) figure;
+            addCircle(circle.getCenter().getX(), circle.getCenter().getY(), circle.getRadius());
+        } else if (figure instanceof Triangle) {
+            addPolygon(MyGeometryEnum.TRIANGLE, ((Triangle) figure).getVertexArray());
+        } else if (figure instanceof Quadrangle && figure.type instanceof MyGeometryEnum
+                && figure.type != MyGeometryEnum.NOT_DEFINED) {
+            addPolygon((MyGeometryEnum) figure.type, ((Quadrangle) figure).getVertexArray());
+        } else if (figure instanceof Polygon) {
+            polygons.add(((Polygon) figure).getVertexArray());
+        } else {
+            throw new IllegalArgumentException("Figure type is unknown: " + figure.getClass().getSimpleName() + '!');
+        }
+    }
+
+    public void addDot(double x, double y) {
+        column(MyGeometryEnum.DOT, 2).add(x, y);
+    }
+
+    public void addLine(double startX, double startY, double endX, double endY) {
+        column(MyGeometryEnum.LINE, 4).add(startX, startY, endX, endY);
+    }
+
+    public void addCircle(double centerX, double centerY, double radius) {
+        column(MyGeometryEnum.CIRCLE, 3).add(centerX, centerY, radius);
+    }
+
+    public void addTriangle(double x1, double y1, double x2, double y2, double x3, double y3) {
+        column(MyGeometryEnum.TRIANGLE, 6).add(x1, y1, x2, y2, x3, y3);
+    }
+
+    /**
+     * Adds 4-sided figure by its vertexes, given in order of going around the figure.
+     *
+     * @param type {@link MyGeometryEnum#SQUARE}, {@link MyGeometryEnum#RECTANGLE} or {@link MyGeometryEnum#PARALLELOGRAM}
+     * @throws IllegalArgumentException if type is not a type of 4-sided figure
+     */
+    public void addQuadrangle(MyGeometryEnum type, double x1, double y1, double x2, double y2,
+                              double x3, double y3, double x4, double y4) throws IllegalArgumentException {
+        if (type != MyGeometryEnum.SQUARE && type != MyGeometryEnum.RECTANGLE && type != MyGeometryEnum.PARALLELOGRAM) {
+            throw new IllegalArgumentException("Type is not a 4-sided figure type: " + type + '!');
+        }
+        column(type, 8).add(x1, y1, x2, y2, x3, y3, x4, y4);
+    }
+
+    /**
+     * Adds polygon with any number of vertexes.
+     *
+     * @param xs X coordinates of vertexes in order of going around polygon (array of doubles)
+     * @param ys Y coordinates of vertexes in the same order (array of doubles)
+     * @throws IllegalArgumentException if arrays differ in length or there are less than three vertexes
+     */
+    public void addPolygon(double[] xs, double[] ys) throws IllegalArgumentException {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Arrays of coordinates must be of equal length!");
+        }
+        if (xs.length < 3) throw new IllegalArgumentException("Polygon must have at least three vertexes!");
+        polygons.add(xs, ys);
+    }
+
+    /**
+     * @return number of all figures in the batch (int)
+     */
+    public int size() {
+        int size = polygons.size;
+        for (Column column : columns.values()) {
+            size += column.size;
+        }
+        return size;
+    }
+
+    /**
+     * @param type figure type ({@link MyGeometryEnum} object)
+     * @return number of figures of given type (int)
+     */
+    public int size(MyGeometryEnum type) {
+        if (type == MyGeometryEnum.POLYGON) return polygons.size;
+        Column column = columns.get(type);
+        return column == null ? 0 : column.size;
+    }
+
+    /**
+     * Computes perimeters of all figures of given type: side lengths of polygons, length of lines and
+     * arc length of circles.
+     *
+     * @param type figure type ({@link MyGeometryEnum} object)
+     * @return perimeters in order figures were added (array of doubles)
+     */
+    public double[] getPerimeters(MyGeometryEnum type) {
+        if (type == MyGeometryEnum.POLYGON) return polygons.getPerimeters();
+        Column column = columns.get(type);
+        if (column == null) return new double[0];
+        int size = column.size;
+        double[][] values = column.values;
+        double[] perimeters = new double[size];
+        if (type == MyGeometryEnum.CIRCLE) {
+            double[] radiuses = values[2];
+            for (int i = 0; i < size; i++) {
+                perimeters[i] = 2 * Math.PI * radiuses[i];
+            }
+        } else if (type == MyGeometryEnum.LINE) {
+            addDistances(values[0], values[1], values[2], values[3], size, perimeters);
+        } else if (type != MyGeometryEnum.DOT) {
+            int vertexCount = values.length / 2;
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                int next = (vertex + 1) % vertexCount;
+                addDistances(values[2 * vertex], values[2 * vertex + 1], values[2 * next], values[2 * next + 1],
+                        size, perimeters);
+            }
+        }
+        return perimeters;
+    }
+
+    /**
+     * Computes areas of all figures of given type. Areas of dots and lines are zero.
+     *
+     * @param type figure type ({@link MyGeometryEnum} object)
+     * @return areas in order figures were added (array of doubles)
+     */
+    public double[] getAreas(MyGeometryEnum type) {
+        if (type == MyGeometryEnum.POLYGON) return polygons.getAreas();
+        Column column = columns.get(type);
+        if (column == null) return new double[0];
+        int size = column.size;
+        double[][] values = column.values;
+        double[] areas = new double[size];
+        if (type == MyGeometryEnum.CIRCLE) {
+            double[] radiuses = values[2];
+            for (int i = 0; i < size; i++) {
+                areas[i] = Math.PI * radiuses[i] * radiuses[i];
+            }
+        } else if (type != MyGeometryEnum.DOT && type != MyGeometryEnum.LINE) {
+            //shoelace formula: area is half of absolute sum of cross products of neighbouring vertexes
+            int vertexCount = values.length / 2;
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                int next = (vertex + 1) % vertexCount;
+                double[] x1 = values[2 * vertex];
+                double[] y1 = values[2 * vertex + 1];
+                double[] x2 = values[2 * next];
+                double[] y2 = values[2 * next + 1];
+                for (int i = 0; i < size; i++) {
+                    areas[i] += x1[i] * y2[i] - x2[i] * y1[i];
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                areas[i] = Math.abs(areas[i]) / 2;
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * @return sum of areas of all figures (double)
+     */
+    public double getTotalArea() {
+        double totalArea = 0;
+        for (MyGeometryEnum type : columns.keySet()) {
+            for (double area : getAreas(type)) {
+                totalArea += area;
+            }
+        }
+        for (double area : polygons.getAreas()) {
+            totalArea += area;
+        }
+        return totalArea;
+    }
+
+    private void addPolygon(MyGeometryEnum type, Dot[] vertexes) {
+        double[] row = new double[vertexes.length * 2];
+        for (int i = 0; i < vertexes.length; i++) {
+            row[2 * i] = vertexes[i].getX();
+            row[2 * i + 1] = vertexes[i].getY();
+        }
+        column(type, row.length).add(row);
+    }
+
+    private Column column(MyGeometryEnum type, int width) {
+        return columns.computeIfAbsent(type, t -> new Column(width));
+    }
+
+    /**
+     * Adds distance between points (x1[i], y1[i]) and (x2[i], y2[i]) to result[i] for every i.
+     */
+    private static void addDistances(double[] x1, double[] y1, double[] x2, double[] y2, int size, double[] result) {
+        for (int i = 0; i < size; i++) {
+            double dx = x2[i] - x1[i];
+            double dy = y2[i] - y1[i];
+            result[i] += Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FigureBatch: (" +
+                "size=" + size() +
+                ')';
+    }
+
+    /**
+     * Figures of one type: values[j][i] is j-th coordinate of i-th figure.
+     */
+    private static class Column {
+        private final double[][] values;
+        private int size;
+
+        private Column(int width) {
+            this.values = new double[width][INITIAL_CAPACITY];
+        }
+
+        private void add(double... row) {
+            if (size == values[0].length) {
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = Arrays.copyOf(values[j], size * 2);
+                }
+            }
+            for (int j = 0; j < values.length; j++) {
+                values[j][size] = row[j];
+            }
+            size++;
+        }
+    }
+
+    /**
+     * Polygons with any number of vertexes: vertexes of i-th polygon are xs[j] and ys[j] for j from starts[i]
+     * to starts[i + 1] exclusive.
+     */
+    private static class PolygonColumn {
+        private double[] xs = new double[INITIAL_CAPACITY];
+        private double[] ys = new double[INITIAL_CAPACITY];
+        private int[] starts = new int[INITIAL_CAPACITY + 1];
+        private int size;
+
+        private void add(Dot[] vertexes) {
+            double[] vertexXs = new double[vertexes.length];
+            double[] vertexYs = new double[vertexes.length];
+            for (int i = 0; i < vertexes.length; i++) {
+                vertexXs[i] = vertexes[i].getX();
+                vertexYs[i] = vertexes[i].getY();
+            }
+            add(vertexXs, vertexYs);
+        }
+
+        private void add(double[] vertexXs, double[] vertexYs) {
+            int start = starts[size];
+            int end = start + vertexXs.length;
+            if (end > xs.length) {
+                int capacity = Math.max(xs.length * 2, end);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+            }
+            if (size + 1 == starts.length) starts = Arrays.copyOf(starts, starts.length * 2);
+            System.arraycopy(vertexXs, 0, xs, start, vertexXs.length);
+            System.arraycopy(vertexYs, 0, ys, start, vertexYs.length);
+            starts[++size] = end;
+        }
+
+        private double[] getPerimeters() {
+            double[] perimeters = new double[size];
+            for (int i = 0; i < size; i++) {
+                int start = starts[i];
+                int end = starts[i + 1];
+                //closing side goes from the last vertex back to the first one
+                double previousX = xs[end - 1];
+                double previousY = ys[end - 1];
+                double perimeter = 0;
+                for (int j = start; j < end; j++) {
+                    double dx = xs[j] - previousX;
+                    double dy = ys[j] - previousY;
+                    perimeter += Math.sqrt(dx * dx + dy * dy);
+                    previousX = xs[j];
+                    previousY = ys[j];
+                }
+                perimeters[i] = perimeter;
+            }
+            return perimeters;
+        }
+
+        private double[] getAreas() {
+            double[] areas = new double[size];
+            for (int i = 0; i < size; i++) {
+                int start = starts[i];
+                int end = starts[i + 1];
+                double previousX = xs[end - 1];
+                double previousY = ys[end - 1];
+                double doubleArea = 0;
+                for (int j = start; j < end; j++) {
+                    doubleArea += previousX * ys[j] - xs[j] * previousY;
+                    previousX = xs[j];
+                    previousY = ys[j];
+                }
+                areas[i] = Math.abs(doubleArea) / 2;
+            }
+            return areas;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package geometry;
+
+/**
+ * Two figures found by {@link CollisionDetector} to intersect each other.
+ *
+ * @param <T> type of figures
+ */
+public final class FigurePair<T extends GenericGeometricFigure> {
+
+    private final T first;
+    private final T second;
+
+    FigurePair(T first, T second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * @return figure which comes earlier in checked collection (figure)
+     */
+    public T getFirst() {
+        return first;
+    }
+
+    /**
+     * @return figure which comes later in checked collection (figure)
+     */
+    public T getSecond() {
+        return second;
+    }
+
+    @Override
+    public String toString() {
+        return "FigurePair: (" +
+                first +
+                ", " + second +
+                ')';
+    }
+}
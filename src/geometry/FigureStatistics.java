@@ -0,0 +1,180 @@
+package geometry;
+
+import my_enum.MyGeometryEnum;
+
+import java.util.Arrays;
+
+/**
+ * Summary of figures of one type ({@link MyGeometryEnum}): number of figures, sum, minimum and maximum of their
+ * areas and perimeters, and histogram of perimeters. Statistics are filled by {@link FigureAggregator}, which keeps
+ * separate statistics for every thread and merges them at the end, so statistics themselves are not thread-safe.
+ * <p>
+ * Histogram bucket of perimeter is its power of two: bucket i &gt; 0 counts perimeters from
+ * {@link #getBucketLowerBound(int) getBucketLowerBound(i)} inclusive to getBucketLowerBound(i + 1) exclusive.
+ * Bucket 0 counts zero perimeters of dots and ones smaller than 2^{@value #MIN_EXPONENT}, and the last bucket counts
+ * all perimeters too big for other buckets.
+ *
+ * @see FigureAggregator
+ */
+public final class FigureStatistics {
+
+    public static final int BUCKET_COUNT = 64;
+    public static final int MIN_EXPONENT = -20;
+
+    private final MyGeometryEnum type;
+    private long count;
+    private double areaSum;
+    private double minArea = Double.POSITIVE_INFINITY;
+    private double maxArea = Double.NEGATIVE_INFINITY;
+    private double perimeterSum;
+    private double minPerimeter = Double.POSITIVE_INFINITY;
+    private double maxPerimeter = Double.NEGATIVE_INFINITY;
+    private final long[] perimeterHistogram = new long[BUCKET_COUNT];
+
+    FigureStatistics(MyGeometryEnum type) {
+        this.type = type;
+    }
+
+    /**
+     * Adds figure to statistics.
+     *
+     * @param figure figure of type of these statistics ({@link GenericGeometricFigure} object)
+     */
+    void accept(GenericGeometricFigure figure) {
+        double area = figure.getArea();
+        double perimeter = figure.getPerimeter();
+        count++;
+        areaSum += area;
+        minArea = Math.min(minArea, area);
+        maxArea = Math.max(maxArea, area);
+        perimeterSum += perimeter;
+        minPerimeter = Math.min(minPerimeter, perimeter);
+        maxPerimeter = Math.max(maxPerimeter, perimeter);
+        perimeterHistogram[bucketOf(perimeter)]++;
+    }
+
+    /**
+     * Adds all figures counted by other statistics of the same type to these statistics.
+     *
+     * @param other other statistics ({@link FigureStatistics} object)
+     */
+    void combine(FigureStatistics other) {
+        count += other.count;
+        areaSum += other.areaSum;
+        minArea = Math.min(minArea, other.minArea);
+        maxArea = Math.max(maxArea, other.maxArea);
+        perimeterSum += other.perimeterSum;
+        minPerimeter = Math.min(minPerimeter, other.minPerimeter);
+        maxPerimeter = Math.max(maxPerimeter, other.maxPerimeter);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            perimeterHistogram[i] += other.perimeterHistogram[i];
+        }
+    }
+
+    public MyGeometryEnum getType() {
+        return type;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Sum of areas. Figures are summed in different order on every parallel run, so sums of the same figures
+     * may differ in last digits.
+     *
+     * @return total area of figures (double)
+     */
+    public double getTotalArea() {
+        return areaSum;
+    }
+
+    /**
+     * @return mean area, or zero if there are no figures (double)
+     */
+    public double getMeanArea() {
+        return count == 0 ? 0d : areaSum / count;
+    }
+
+    /**
+     * @return minimal area, or positive infinity if there are no figures (double)
+     */
+    public double getMinArea() {
+        return minArea;
+    }
+
+    /**
+     * @return maximal area, or negative infinity if there are no figures (double)
+     */
+    public double getMaxArea() {
+        return maxArea;
+    }
+
+    /**
+     * @return total perimeter of figures (double)
+     * @see #getTotalArea()
+     */
+    public double getTotalPerimeter() {
+        return perimeterSum;
+    }
+
+    /**
+     * @return mean perimeter, or zero if there are no figures (double)
+     */
+    public double getMeanPerimeter() {
+        return count == 0 ? 0d : perimeterSum / count;
+    }
+
+    /**
+     * @return minimal perimeter, or positive infinity if there are no figures (double)
+     */
+    public double getMinPerimeter() {
+        return minPerimeter;
+    }
+
+    /**
+     * @return maximal perimeter, or negative infinity if there are no figures (double)
+     */
+    public double getMaxPerimeter() {
+        return maxPerimeter;
+    }
+
+    /**
+     * @return numbers of figures in every perimeter bucket (array of {@value #BUCKET_COUNT} longs)
+     */
+    public long[] getPerimeterHistogram() {
+        return perimeterHistogram.clone();
+    }
+
+    /**
+     * @param bucket number of histogram bucket (int)
+     * @return smallest perimeter counted in the bucket (double)
+     * @throws IllegalArgumentException if there is no such bucket
+     */
+    public static double getBucketLowerBound(int bucket) throws IllegalArgumentException {
+        if (bucket < 0 || bucket >= BUCKET_COUNT) throw new IllegalArgumentException("Wrong bucket number: " + bucket + '!');
+        return bucket == 0 ? 0d : Math.scalb(1d, bucket - 1 + MIN_EXPONENT);
+    }
+
+    private static int bucketOf(double perimeter) {
+        //exponent of zero is below MIN_EXPONENT, and exponent of infinity and NaN is above all buckets
+        int bucket = Math.getExponent(perimeter) - MIN_EXPONENT + 1;
+        return Math.max(0, Math.min(bucket, BUCKET_COUNT - 1));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder histogram = new StringBuilder();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (perimeterHistogram[i] == 0) continue;
+            if (histogram.length() > 0) histogram.append(", ");
+            histogram.append(getBucketLowerBound(i)).append("+=").append(perimeterHistogram[i]);
+        }
+        return "FigureStatistics: (" +
+                "type=" + type.getName() +
+                ", count=" + count +
+                ", area: total=" + areaSum + ", min=" + minArea + ", max=" + maxArea +
+                ", perimeter: total=" + perimeterSum + ", min=" + minPerimeter + ", max=" + maxPerimeter +
+                ", perimeters=[" + histogram + "])";
+    }
+}
@@ -3,7 +3,8 @@ package geometry;
 import my_enum.MyGeometryEnum;
 
 /**
- * Abstract class declares basic methods {@link #getPerimeter()} and {@link #getArea()} for all geometric figures.
+ * Abstract class declares basic methods {@link #getPerimeter()}, {@link #getArea()} and {@link #getBoundingBox()}
+ * for all geometric figures.
  * Also implements method {@link #getType()} that return object type as a {@link String}.
  */
 public abstract class GenericGeometricFigure {
@@ -14,6 +15,11 @@ public abstract class GenericGeometricFigure {
 
     public abstract double getArea();
 
+    /**
+     * @return smallest axis-aligned rectangle enclosing the figure ({@link BoundingBox} object)
+     */
+    public abstract BoundingBox getBoundingBox();
+
     /**
      * @return Geometric figure type (String)
      */
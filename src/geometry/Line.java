@@ -91,6 +91,11 @@ public class Line extends GenericGeometricFigure {
         return 0;
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(lineStart, lineEnd);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
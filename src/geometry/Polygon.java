@@ -0,0 +1,151 @@
+package geometry;
+
+import java.util.Arrays;
+
+/**
+ * This object extends {@link GenericGeometricFigure} and represents polygon with any number of vertexes.
+ * Polygon is defined by its vertexes in order of going around it, either clockwise or counterclockwise.
+ * This object can be constructed by defining {@link Dot} objects ({@link #Polygon(Dot...)}) or by defining
+ * arrays of vertexes X and Y coordinates ({@link #Polygon(double[], double[])}).
+ * Methods {@link #getPerimeter()} and {@link #getArea()} returns perimeter and area of a polygon.
+ * Sides of polygon must not cross each other, convexity is not required.
+ *
+ * @see geometry.GenericGeometricFigure
+ * @see ConvexHull
+ * @see Dot
+ */
+public class Polygon extends GenericGeometricFigure {
+
+    private final Dot[] vertexArray;
+    private PolygonMeasures measures;
+
+    /**
+     * Creates {@link Polygon} object by defining its vertexes
+     *
+     * @param vertexes vertexes in order of going around polygon (array of {@link Dot} objects)
+     * @throws IllegalArgumentException if there are less than three vertexes
+     */
+    public Polygon(Dot... vertexes) throws IllegalArgumentException {
+        if (vertexes.length < 3) throw new IllegalArgumentException("Polygon must have at least three vertexes!");
+        this.vertexArray = vertexes.clone();
+    }
+
+    /**
+     * Creates {@link Polygon} object by defining coordinates of its vertexes
+     *
+     * @param xs X coordinates of vertexes in order of going around polygon (array of doubles)
+     * @param ys Y coordinates of vertexes in the same order (array of doubles)
+     * @throws IllegalArgumentException if arrays differ in length or there are less than three vertexes
+     */
+    public Polygon(double[] xs, double[] ys) throws IllegalArgumentException {
+        if (xs.length != ys.length) throw new IllegalArgumentException("Arrays of coordinates must be of equal length!");
+        if (xs.length < 3) throw new IllegalArgumentException("Polygon must have at least three vertexes!");
+        this.vertexArray = new Dot[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            vertexArray[i] = new Dot(xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * @return copy of array of vertexes (array of {@link Dot} objects)
+     */
+    public Dot[] getVertexArray() {
+        return vertexArray.clone();
+    }
+
+    public int getVertexCount() {
+        return vertexArray.length;
+    }
+
+    /**
+     * Checks that polygon is convex: going around it, all turns are made in one direction, and sides go around
+     * only once, which is seen by X and Y directions of sides changing no more than twice each.
+     * Vertexes lying on a side between its neighbours don't make polygon concave.
+     *
+     * @return true if polygon is convex (boolean)
+     */
+    public boolean isConvex() {
+        int count = vertexArray.length;
+        double[] dxs = new double[count];
+        double[] dys = new double[count];
+        for (int i = 0; i < count; i++) {
+            dxs[i] = vertexArray[(i + 1) % count].getX() - vertexArray[i].getX();
+            dys[i] = vertexArray[(i + 1) % count].getY() - vertexArray[i].getY();
+        }
+        boolean hasLeftTurn = false, hasRightTurn = false;
+        for (int i = 0; i < count; i++) {
+            int next = (i + 1) % count;
+            double cross = dxs[i] * dys[next] - dys[i] * dxs[next];
+            if (cross > 0) hasLeftTurn = true;
+            if (cross < 0) hasRightTurn = true;
+        }
+        return !(hasLeftTurn && hasRightTurn) && signChanges(dxs) <= 2 && signChanges(dys) <= 2;
+    }
+
+    /**
+     * @return number of sign changes between neighbouring non-zero values, going around the array (int)
+     */
+    private static int signChanges(double[] values) {
+        double last = 0;
+        for (double value : values) {
+            if (value != 0) last = value;
+        }
+        int changes = 0;
+        for (double value : values) {
+            if (value == 0) continue;
+            if ((value > 0) != (last > 0)) changes++;
+            last = value;
+        }
+        return changes;
+    }
+
+    /**
+     * Calculates perimeter of polygon as sum of distances between neighbouring vertexes.
+     * Perimeter is computed once and cached until some vertex is moved.
+     *
+     * @return perimeter (double)
+     */
+    @Override
+    public double getPerimeter() {
+        return measures().getPerimeter();
+    }
+
+    /**
+     * Calculates area of polygon by shoelace formula. Area is computed once and cached until some vertex is moved.
+     *
+     * @return area (double)
+     */
+    @Override
+    public double getArea() {
+        return measures().getArea();
+    }
+
+    private PolygonMeasures measures() {
+        return measures = PolygonMeasures.current(measures, vertexArray);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(vertexArray);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Polygon polygon = (Polygon) o;
+        return Arrays.equals(vertexArray, polygon.vertexArray);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(vertexArray);
+    }
+
+    @Override
+    public String toString() {
+        return "polygon: (" +
+                "vertexes=" + Arrays.toString(vertexArray) +
+                ')';
+    }
+}
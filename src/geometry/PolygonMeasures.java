@@ -0,0 +1,78 @@
+package geometry;
+
+/**
+ * Perimeter and area of a polygon computed once from coordinates of its vertexes, and kept by polygon figures
+ * until some vertex is moved. Measures are immutable, so figure can share them between threads.
+ *
+ * @see Triangle
+ * @see Quadrangle
+ */
+final class PolygonMeasures {
+
+    private final long version;
+    private final double perimeter;
+    private final double area;
+
+    private PolygonMeasures(long version, double perimeter, double area) {
+        this.version = version;
+        this.perimeter = perimeter;
+        this.area = area;
+    }
+
+    /**
+     * Computes measures of polygon: perimeter as sum of side lengths, and area by shoelace formula
+     * https://en.wikipedia.org/wiki/Shoelace_formula
+     *
+     * @param vertexes vertexes in order of going around polygon (array of {@link Dot} objects)
+     * @return measures ({@link PolygonMeasures} object)
+     */
+    static PolygonMeasures of(Dot[] vertexes) {
+        double perimeter = 0d;
+        double doubleArea = 0d;
+        Dot previous = vertexes[vertexes.length - 1];
+        for (Dot vertex : vertexes) {
+            perimeter += previous.calculateDistance(vertex);
+            doubleArea += previous.getX() * vertex.getY() - vertex.getX() * previous.getY();
+            previous = vertex;
+        }
+        return new PolygonMeasures(version(vertexes), perimeter, Math.abs(doubleArea) / 2);
+    }
+
+    /**
+     * Returns cached measures of polygon, or computes them again if there are none yet or some vertex was moved.
+     *
+     * @param cached   measures cached by the figure, or null if none are cached yet ({@link PolygonMeasures} object)
+     * @param vertexes vertexes in order of going around polygon (array of {@link Dot} objects)
+     * @return measures valid for current vertex positions ({@link PolygonMeasures} object)
+     */
+    static PolygonMeasures current(PolygonMeasures cached, Dot[] vertexes) {
+        if (cached != null && cached.isValidFor(vertexes)) return cached;
+        return of(vertexes);
+    }
+
+    /**
+     * @return true if no vertex was moved since measures were computed (boolean)
+     */
+    private boolean isValidFor(Dot[] vertexes) {
+        return version == version(vertexes);
+    }
+
+    double getPerimeter() {
+        return perimeter;
+    }
+
+    double getArea() {
+        return area;
+    }
+
+    /**
+     * Move counters of dots only grow, so their sum changes whenever any dot is moved.
+     */
+    private static long version(Dot[] vertexes) {
+        long version = 0;
+        for (Dot vertex : vertexes) {
+            version += vertex.getMoveCount();
+        }
+        return version;
+    }
+}
@@ -16,9 +16,18 @@ public abstract class Quadrangle extends GenericGeometricFigure {
 
     protected Dot[] vertexArray = new Dot[4];
     protected Line[] sideArray = new Line[4];
+    private PolygonMeasures measures;
+
+    /**
+     * @return copy of array of four vertexes (array of {@link Dot} objects)
+     */
+    public Dot[] getVertexArray() {
+        return vertexArray.clone();
+    }
 
     protected void setVertexArray(Dot[] newVertexArray) {
         this.vertexArray = newVertexArray;
+        this.measures = null;
         setSideArray();
     }
 
@@ -30,35 +39,36 @@ public abstract class Quadrangle extends GenericGeometricFigure {
     }
 
     /**
-     * Calculates perimeter of quadrangle by calculation length of each side using
-     * {@link Line#getPerimeter()} method.
+     * Calculates perimeter of quadrangle as sum of distances between neighbouring vertexes.
+     * Perimeter is computed once and cached until some vertex is moved.
      *
      * @return perimeter (double)
-     * @see Line#getPerimeter()
+     * @see Dot#calculateDistance(Dot)
      */
     @Override
     public double getPerimeter() {
-        double perimeter = 0d;
-        for (Line side : sideArray) {
-            perimeter += side.getPerimeter();
-        }
-        return perimeter;
+        return measures().getPerimeter();
     }
 
     /**
-     * Calculates area of quadrangle.
-     * Breaking quadrangle into two {@link Triangle} objects, calculating areas of triangles using method
-     * {@link Triangle#getArea()} and returns sum of these areas.
+     * Calculates area of quadrangle by shoelace formula straight on vertex coordinates. Formula works with any
+     * 4-sided figure, convex or not, as long as its sides don't cross each other.
+     * Area is computed once and cached until some vertex is moved.
      *
      * @return area (double)
      */
     @Override
     public double getArea() {
-        //this method works with any 4-sided geometric figure, but not 100% precise. Better override if possible.
-        Triangle triangle1 = new Triangle(vertexArray[0], vertexArray[1], vertexArray[2]);
-        Triangle triangle2 = new Triangle(vertexArray[2], vertexArray[3], vertexArray[0]);
+        return measures().getArea();
+    }
+
+    private PolygonMeasures measures() {
+        return measures = PolygonMeasures.current(measures, vertexArray);
+    }
 
-        return triangle1.getArea() + triangle2.getArea();
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(vertexArray);
     }
 
     @Override
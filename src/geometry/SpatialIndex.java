@@ -0,0 +1,276 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Index of geometric figures by their position on XY plane, built as a quadtree over figure bounding boxes.
+ * Every node of the tree covers a square, split into four equal quadrants when node gets more than
+ * {@link #NODE_CAPACITY} figures. Figure is kept in the smallest node whose square encloses its whole
+ * {@link BoundingBox}, so window queries and nearest figure queries visit only nodes around the searched place,
+ * and take logarithmic time for evenly spread figures. Tree grows by itself when figure is added outside of it.
+ * <p>
+ * Index keeps bounding box of figure as it was when figure was added. To move indexed figure, remove it,
+ * move it and add it again. Figures are told apart by identity, so equal figures can be indexed together.
+ * Index is not thread-safe.
+ *
+ * @param <T> type of indexed figures
+ * @see BoundingBox
+ */
+public class SpatialIndex<T extends GenericGeometricFigure> {
+
+    public static final int NODE_CAPACITY = 8;
+    //prevents endless splitting of nodes holding many figures at the same point
+    public static final int MAX_DEPTH = 40;
+
+    private final Map<T, BoundingBox> boxes = new IdentityHashMap<>();
+    private Node<T> root;
+
+    /**
+     * Adds figure to the index.
+     *
+     * @param figure figure ({@link GenericGeometricFigure} object)
+     * @return true if figure was added, false if it is already indexed (boolean)
+     * @throws IllegalArgumentException if figure has infinite or not defined coordinates
+     */
+    public boolean add(T figure) throws IllegalArgumentException {
+        if (boxes.containsKey(figure)) return false;
+        BoundingBox box = figure.getBoundingBox();
+        if (!Double.isFinite(box.getWidth()) || !Double.isFinite(box.getHeight())) {
+            throw new IllegalArgumentException("Figure coordinates must be finite!");
+        }
+        if (root == null) root = new Node<>(squareAround(box));
+        while (!root.bounds.contains(box)) {
+            root = grow(root, box);
+        }
+        add(root, new Entry<>(figure, box), 0);
+        boxes.put(figure, box);
+        return true;
+    }
+
+    /**
+     * Removes figure from the index.
+     *
+     * @param figure figure ({@link GenericGeometricFigure} object)
+     * @return true if figure was removed, false if it is not indexed (boolean)
+     */
+    public boolean remove(T figure) {
+        BoundingBox box = boxes.remove(figure);
+        if (box == null) return false;
+        remove(root, figure, box);
+        return true;
+    }
+
+    /**
+     * @return number of indexed figures (int)
+     */
+    public int size() {
+        return boxes.size();
+    }
+
+    /**
+     * Finds figures which bounding boxes intersect given window.
+     *
+     * @param window searched area ({@link BoundingBox} object)
+     * @return found figures in no particular order (List of figures)
+     */
+    public List<T> query(BoundingBox window) {
+        List<T> foundFigures = new ArrayList<>();
+        if (root != null) query(root, window, foundFigures);
+        return foundFigures;
+    }
+
+    /**
+     * Finds figures closest to given point. Distance to figure is distance to its bounding box, so it is exact
+     * for dots and zero for any point inside of figure box. Tree nodes are visited in order of their distance
+     * to the point, and search stops as soon as k figures closer than all remaining nodes are found.
+     *
+     * @param x X coordinate of point (double)
+     * @param y Y coordinate of point (double)
+     * @param k maximum number of found figures (int)
+     * @return found figures, closest first (List of figures)
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public List<T> nearest(double x, double y, int k) throws IllegalArgumentException {
+        if (k <= 0) throw new IllegalArgumentException("Number of figures must be positive.");
+        List<T> foundFigures = new ArrayList<>(Math.min(k, size()));
+        if (root == null) return foundFigures;
+        PriorityQueue<Candidate<T>> candidates = new PriorityQueue<>();
+        candidates.add(new Candidate<>(root.bounds.distanceSquaredTo(x, y), root, null));
+        while (!candidates.isEmpty() && foundFigures.size() < k) {
+            Candidate<T> candidate = candidates.poll();
+            if (candidate.entry != null) {
+                foundFigures.add(candidate.entry.figure);
+                continue;
+            }
+            Node<T> node = candidate.node;
+            for (Entry<T> entry : node.entries) {
+                candidates.add(new Candidate<>(entry.box.distanceSquaredTo(x, y), null, entry));
+            }
+            if (node.children != null) {
+                for (Node<T> child : node.children) {
+                    if (child.count > 0) candidates.add(new Candidate<>(child.bounds.distanceSquaredTo(x, y), child, null));
+                }
+            }
+        }
+        return foundFigures;
+    }
+
+    private static <T extends GenericGeometricFigure> void add(Node<T> node, Entry<T> entry, int depth) {
+        node.count++;
+        if (node.children != null) {
+            Node<T> child = node.childContaining(entry.box);
+            if (child != null) add(child, entry, depth + 1);
+            else node.entries.add(entry);
+            return;
+        }
+        node.entries.add(entry);
+        if (node.entries.size() > NODE_CAPACITY && depth < MAX_DEPTH) split(node, depth);
+    }
+
+    /**
+     * Divides leaf node into four quadrants and moves down figures that fit into one quadrant.
+     */
+    private static <T extends GenericGeometricFigure> void split(Node<T> node, int depth) {
+        node.split();
+        List<Entry<T>> entries = new ArrayList<>(node.entries);
+        node.entries.clear();
+        node.count -= entries.size();
+        for (Entry<T> entry : entries) {
+            add(node, entry, depth);
+        }
+    }
+
+    private static <T extends GenericGeometricFigure> void remove(Node<T> node, T figure, BoundingBox box) {
+        node.count--;
+        Node<T> child = node.children == null ? null : node.childContaining(box);
+        if (child != null) {
+            remove(child, figure, box);
+        } else {
+            for (int i = 0; i < node.entries.size(); i++) {
+                if (node.entries.get(i).figure == figure) {
+                    node.entries.remove(i);
+                    break;
+                }
+            }
+        }
+        //few figures left in subtree, so quadrants are not worth keeping
+        if (node.children != null && node.count <= NODE_CAPACITY) {
+            List<Entry<T>> subtreeEntries = new ArrayList<>(node.count);
+            collect(node, subtreeEntries);
+            node.children = null;
+            node.entries.clear();
+            node.entries.addAll(subtreeEntries);
+        }
+    }
+
+    private static <T extends GenericGeometricFigure> void collect(Node<T> node, List<Entry<T>> entries) {
+        entries.addAll(node.entries);
+        if (node.children == null) return;
+        for (Node<T> child : node.children) {
+            collect(child, entries);
+        }
+    }
+
+    private static <T extends GenericGeometricFigure> void query(Node<T> node, BoundingBox window, List<T> foundFigures) {
+        if (node.count == 0 || !node.bounds.intersects(window)) return;
+        for (Entry<T> entry : node.entries) {
+            if (entry.box.intersects(window)) foundFigures.add(entry.figure);
+        }
+        if (node.children == null) return;
+        for (Node<T> child : node.children) {
+            query(child, window, foundFigures);
+        }
+    }
+
+    private static BoundingBox squareAround(BoundingBox box) {
+        double side = Math.max(Math.max(box.getWidth(), box.getHeight()), 1d);
+        double centerX = (box.getMinX() + box.getMaxX()) / 2;
+        double centerY = (box.getMinY() + box.getMaxY()) / 2;
+        return new BoundingBox(centerX - side, centerY - side, centerX + side, centerY + side);
+    }
+
+    /**
+     * Makes root twice bigger towards given box. Old root becomes one of quadrants of new root.
+     */
+    private static <T extends GenericGeometricFigure> Node<T> grow(Node<T> root, BoundingBox box) {
+        BoundingBox bounds = root.bounds;
+        double side = bounds.getWidth();
+        boolean growLeft = box.getMinX() < bounds.getMinX();
+        boolean growDown = box.getMinY() < bounds.getMinY();
+        double minX = growLeft ? bounds.getMinX() - side : bounds.getMinX();
+        double minY = growDown ? bounds.getMinY() - side : bounds.getMinY();
+        Node<T> newRoot = new Node<>(new BoundingBox(minX, minY, minX + 2 * side, minY + 2 * side));
+        newRoot.split();
+        newRoot.children[(growLeft ? 1 : 0) + (growDown ? 2 : 0)] = root;
+        newRoot.count = root.count;
+        return newRoot;
+    }
+
+    /**
+     * Square of the tree. Quadrants are numbered: 0 - lower left, 1 - lower right, 2 - upper left, 3 - upper right.
+     */
+    private static class Node<T extends GenericGeometricFigure> {
+        private final BoundingBox bounds;
+        //figures of leaf node, or figures not fitting into one quadrant
+        private final List<Entry<T>> entries = new ArrayList<>();
+        private Node<T>[] children;
+        //number of figures in the node and all its quadrants
+        private int count;
+
+        private Node(BoundingBox bounds) {
+            this.bounds = bounds;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void split() {
+            double midX = (bounds.getMinX() + bounds.getMaxX()) / 2;
+            double midY = (bounds.getMinY() + bounds.getMaxY()) / 2;
+            children = (Node<T>[]) new Node<?>[4];
+            children[0] = new Node<>(new BoundingBox(bounds.getMinX(), bounds.getMinY(), midX, midY));
+            children[1] = new Node<>(new BoundingBox(midX, bounds.getMinY(), bounds.getMaxX(), midY));
+            children[2] = new Node<>(new BoundingBox(bounds.getMinX(), midY, midX, bounds.getMaxY()));
+            children[3] = new Node<>(new BoundingBox(midX, midY, bounds.getMaxX(), bounds.getMaxY()));
+        }
+
+        /**
+         * @return quadrant enclosing the whole box, or null if box crosses middle lines of the node
+         */
+        private Node<T> childContaining(BoundingBox box) {
+            for (Node<T> child : children) {
+                if (child.bounds.contains(box)) return child;
+            }
+            return null;
+        }
+    }
+
+    private static class Entry<T extends GenericGeometricFigure> {
+        private final T figure;
+        private final BoundingBox box;
+
+        private Entry(T figure, BoundingBox box) {
+            this.figure = figure;
+            this.box = box;
+        }
+    }
+
+    private static class Candidate<T extends GenericGeometricFigure> implements Comparable<Candidate<T>> {
+        private final double distance;
+        private final Node<T> node;
+        private final Entry<T> entry;
+
+        private Candidate(double distance, Node<T> node, Entry<T> entry) {
+            this.distance = distance;
+            this.node = node;
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(Candidate<T> other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+}
@@ -16,6 +16,7 @@ public class Triangle extends GenericGeometricFigure {
 
     private final Dot[] vertexArray = new Dot[3];
     private final Line[] sideArray = new Line[3];
+    private PolygonMeasures measures;
 
     /**
      * Creates {@link Triangle} object by defining its vertexes
@@ -48,32 +49,40 @@ public class Triangle extends GenericGeometricFigure {
     }
 
     /**
-     * Calculates perimeter of triangle
+     * @return copy of array of three vertexes (array of {@link Dot} objects)
+     */
+    public Dot[] getVertexArray() {
+        return vertexArray.clone();
+    }
+
+    /**
+     * Calculates perimeter of triangle. Perimeter is computed once and cached until some vertex is moved.
      *
      * @return perimeter (double)
      */
     @Override
     public double getPerimeter() {
-        double perimeter = 0d;
-        for (Line side : sideArray) {
-            perimeter += side.getPerimeter();
-        }
-        return perimeter;
+        return measures().getPerimeter();
     }
 
     /**
-     * Calculates area of triangle by Heron's formula
-     * https://www.britannica.com/science/Herons-formula
+     * Calculates area of triangle by shoelace formula, which needs no square roots unlike Heron's formula.
+     * Area is computed once and cached until some vertex is moved.
      *
      * @return area (double)
      */
     @Override
     public double getArea() {
-        double sideA = this.sideArray[0].getPerimeter();
-        double sideB = this.sideArray[1].getPerimeter();
-        double sideC = this.sideArray[2].getPerimeter();
-        double s = this.getPerimeter() / 2;
-        return Math.sqrt(s * (s - sideA) * (s - sideB) * (s - sideC));
+        return measures().getArea();
+    }
+
+    private PolygonMeasures measures() {
+        return measures = PolygonMeasures.current(measures, vertexArray);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(vertexArray);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package my_enum;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 
 public class MyGeometryEnum {
     private final String name;
@@ -17,16 +18,37 @@ public class MyGeometryEnum {
     public static final MyGeometryEnum SQUARE = new MyGeometryEnum("square");
     public static final MyGeometryEnum RECTANGLE = new MyGeometryEnum("rectangle");
     public static final MyGeometryEnum PARALLELOGRAM = new MyGeometryEnum("parallelogram");
+    public static final MyGeometryEnum POLYGON = new MyGeometryEnum("polygon");
+
+    //must follow constants, so they are initialized when array is made
+    private static final MyGeometryEnum[] VALUES = {
+            NOT_DEFINED, DOT, LINE, CIRCLE, TRIANGLE, SQUARE, RECTANGLE, PARALLELOGRAM, POLYGON
+    };
+
+    public String getName() {
+        return name;
+    }
 
     @Override
     public String toString() {
         return "Figure type is " + name + '.';
     }
 
+    /**
+     * @return all constants in order of declaration (array of {@link MyGeometryEnum} objects)
+     */
+    public static MyGeometryEnum[] values() {
+        return VALUES.clone();
+    }
+
     public static Object valueOf(String value){
 
         for (Field field: MyGeometryEnum.class.getDeclaredFields()){
-            if (field.getName().equals(value)){
+            //only constants are types, not other fields like VALUES or name
+            int modifiers = field.getModifiers();
+            boolean constant = Modifier.isPublic(modifiers) && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)
+                    && field.getType() == MyGeometryEnum.class;
+            if (constant && field.getName().equals(value)){
                 try {
                     return MyGeometryEnum.class.getDeclaredField(field.getName()).get(null);
                 } catch (NoSuchFieldException | IllegalAccessException e) {
@@ -0,0 +1,138 @@
+package phone_book;
+
+import java.text.Collator;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Index of contact names in alphabetical order of {@link #COLLATION_LOCALE}, used by {@link PhoneBook}.
+ * Collation keys of a name are computed once, when name is added, so sorted iteration and range queries only compare
+ * prepared keys byte by byte and never call the collator. Names are ordered by primary key, made by collator
+ * of {@link Collator#PRIMARY} strength, which compares letters only, and then by full key, so "ivan" and "Ivan"
+ * stay next to each other, and Latin names go before Cyrillic ones. Range bounds are primary keys too.
+ * Collator methods are synchronized, so every thread computes keys with its own collators.
+ *
+ * @see PhoneBook#listContacts(String, String)
+ */
+class CollationIndex {
+
+    static final Locale COLLATION_LOCALE = new Locale("ru");
+
+    private static final ThreadLocal<Collator> COLLATOR =
+            ThreadLocal.withInitial(() -> Collator.getInstance(COLLATION_LOCALE));
+    private static final ThreadLocal<Collator> PRIMARY_COLLATOR = ThreadLocal.withInitial(() -> {
+        Collator collator = Collator.getInstance(COLLATION_LOCALE);
+        collator.setStrength(Collator.PRIMARY);
+        return collator;
+    });
+    private static final byte[] NO_KEY = new byte[0];
+
+    private final NavigableSet<SortKey> sortedNames;
+    private final Map<String, SortKey> sortKeys;
+
+    CollationIndex(boolean concurrent) {
+        this.sortedNames = concurrent ? new ConcurrentSkipListSet<>() : new TreeSet<>();
+        this.sortKeys = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * Adds name to the index. Must be called under lock of the contact.
+     *
+     * @param name contact name (String)
+     */
+    void add(String name) {
+        SortKey key = new SortKey(PRIMARY_COLLATOR.get().getCollationKey(name).toByteArray(),
+                COLLATOR.get().getCollationKey(name).toByteArray(), name);
+        if (sortKeys.putIfAbsent(name, key) != null) return;
+        sortedNames.add(key);
+    }
+
+    /**
+     * Removes name from the index. Must be called under lock of the contact.
+     *
+     * @param name contact name (String)
+     */
+    void remove(String name) {
+        SortKey key = sortKeys.remove(name);
+        if (key == null) return;
+        sortedNames.remove(key);
+    }
+
+    /**
+     * Lists names in alphabetical order from one name prefix to another. Both bounds are compared by letters only,
+     * regardless of case and accents, and are inclusive, so names from "Ba" to "Bl" include "barbara" and "Blake",
+     * but not "Bob".
+     *
+     * @param from first name or its beginning, or null to start from the first name (String)
+     * @param to   last name or its beginning, or null to go up to the last name (String)
+     * @return stream of names in alphabetical order (Stream of Strings)
+     */
+    Stream<String> streamRange(String from, String to) {
+        NavigableSet<SortKey> range = sortedNames;
+        if (from != null) {
+            range = range.tailSet(new SortKey(prefixKey(from), NO_KEY, ""), true);
+        }
+        if (to != null) {
+            byte[] upperBound = successor(prefixKey(to));
+            if (upperBound != null) range = range.headSet(new SortKey(upperBound, NO_KEY, ""), false);
+        }
+        return range.stream().map(key -> key.name);
+    }
+
+    /**
+     * Primary key holds letter weights only, followed by zero chars ending the empty weight levels. Letter weights
+     * are never zero, and weights of name beginning are the beginning of weights of the name.
+     *
+     * @return primary key of name beginning without trailing zero chars, so it is a prefix of primary keys of
+     * all names starting with it (array of bytes)
+     */
+    private static byte[] prefixKey(String prefix) {
+        byte[] key = PRIMARY_COLLATOR.get().getCollationKey(prefix).toByteArray();
+        int length = key.length;
+        while (length >= 2 && key[length - 1] == 0 && key[length - 2] == 0) {
+            length -= 2;
+        }
+        return Arrays.copyOf(key, length);
+    }
+
+    /**
+     * @return smallest key greater than every key starting with given bytes, or null if there is no such key
+     */
+    private static byte[] successor(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] next = Arrays.copyOf(prefix, i + 1);
+                next[i]++;
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collation keys of name. Different names may have equal keys, for example if they differ only in ignorable
+     * characters, so such names are ordered by name itself.
+     */
+    private static class SortKey implements Comparable<SortKey> {
+        private final byte[] primaryKey;
+        private final byte[] key;
+        private final String name;
+
+        private SortKey(byte[] primaryKey, byte[] key, String name) {
+            this.primaryKey = primaryKey;
+            this.key = key;
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            int result = Arrays.compareUnsigned(primaryKey, other.primaryKey);
+            if (result != 0) return result;
+            result = Arrays.compareUnsigned(key, other.key);
+            if (result != 0) return result;
+            return name.compareTo(other.name);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package phone_book;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable contact of {@link PhoneBook}: name and its phones at the moment of lookup.
+ *
+ * @see PhoneBook#findContact(String)
+ * @see PhoneBook#findContacts(String)
+ */
+public final class Contact {
+
+    private final String name;
+    private final List<String> phones;
+
+    /**
+     * Creates contact.
+     *
+     * @param name   contact name (String)
+     * @param phones contact phones (List of Strings)
+     */
+    public Contact(String name, List<String> phones) {
+        this.name = name;
+        this.phones = Collections.unmodifiableList(phones);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return unmodifiable list of normalized phones, in order they were added (List of Strings)
+     */
+    public List<String> getPhones() {
+        return phones;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Contact contact = (Contact) o;
+        return Objects.equals(name, contact.name) && Objects.equals(phones, contact.phones);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, phones);
+    }
+
+    @Override
+    public String toString() {
+        return name + '=' + phones;
+    }
+}
@@ -0,0 +1,50 @@
+package phone_book;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of contacts found by {@link PhoneBook#findContacts(String, String, int)}.
+ * Contacts are sorted by name. To get next page, pass {@link #getNextCursor()} to the same lookup.
+ *
+ * @see Contact
+ */
+public final class ContactPage {
+
+    private final List<Contact> contacts;
+    private final String nextCursor;
+
+    ContactPage(List<Contact> contacts, String nextCursor) {
+        this.contacts = Collections.unmodifiableList(contacts);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return unmodifiable list of contacts of this page (List of {@link Contact} objects)
+     */
+    public List<Contact> getContacts() {
+        return contacts;
+    }
+
+    /**
+     * @return cursor of the next page, or null if this page is the last one (String)
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return true if there is next page (boolean)
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactPage: (" +
+                "contacts=" + contacts +
+                ", nextCursor=" + nextCursor +
+                ')';
+    }
+}
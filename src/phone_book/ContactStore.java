@@ -0,0 +1,111 @@
+package phone_book;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Abstract storage of contacts used by {@link PhoneBook}: maps contact names to their phones, packed by
+ * {@link PhoneNumber}. Store decides where and how contacts are kept, while phone book keeps search indexes
+ * on top of it.
+ *
+ * @see PhoneBook#PhoneBook(ContactStore)
+ * @see OffHeapContactStore
+ */
+public abstract class ContactStore {
+
+    static final int CONTACT_ADDED = 1;
+    static final int PHONE_ADDED = 2;
+
+    /**
+     * Adds contact without phones if store does not contain it yet. Check and insert must be atomic
+     * for concurrent store.
+     *
+     * @param name contact name (String)
+     * @return true if contact was added
+     */
+    abstract boolean addContact(String name);
+
+    /**
+     * Adds phone to existing contact if contact does not have it yet. Check and insert must be atomic
+     * for concurrent store.
+     *
+     * @param name  contact name (String)
+     * @param phone packed phone number (long)
+     * @return true if phone was added, false if contact has this phone or does not exist
+     */
+    abstract boolean addPhone(String name, long phone);
+
+    /**
+     * Adds contact and its phone. Store may override this method to publish both changes at once,
+     * default implementation adds contact and phone one after another.
+     *
+     * @param name  contact name (String)
+     * @param phone packed phone number (long)
+     * @return {@link #CONTACT_ADDED} and {@link #PHONE_ADDED} flags of effective changes (int)
+     */
+    int addContactWithPhone(String name, long phone) {
+        int result = addContact(name) ? CONTACT_ADDED : 0;
+        if (addPhone(name, phone)) result |= PHONE_ADDED;
+        return result;
+    }
+
+    /**
+     * Removes contact with all its phones.
+     *
+     * @param name contact name (String)
+     * @return packed phones of removed contact, or null if there is no such contact (array of longs)
+     */
+    abstract long[] removeContact(String name);
+
+    /**
+     * Removes phone from contact.
+     *
+     * @param name  contact name (String)
+     * @param phone packed phone number (long)
+     * @return true if phone was removed, false if contact does not have this phone or does not exist
+     */
+    abstract boolean removePhone(String name, long phone);
+
+    /**
+     * Reclaims space left by removed contacts and phones, if store keeps any. Store must stay readable while
+     * compacting. Default implementation does nothing.
+     */
+    void compact() {
+    }
+
+    /**
+     * @param name contact name (String)
+     * @return packed phones of contact in order they were added, or null if there is no such contact
+     * (array of longs)
+     */
+    abstract long[] getPhones(String name);
+
+    /**
+     * Passes every contact with its packed phones to given action.
+     * For concurrent store iteration must be weakly consistent.
+     *
+     * @param action action ({@link BiConsumer} object)
+     */
+    abstract void forEach(BiConsumer<String, long[]> action);
+
+    /**
+     * Returns immutable view of store contacts. Default implementation copies all contacts, so it takes O(n) time,
+     * and for concurrent store the copy may partially reflect mutations made while copying.
+     *
+     * @return snapshot of contacts ({@link PhoneBookSnapshot} object)
+     */
+    PhoneBookSnapshot snapshot() {
+        PersistentContactMap[] copy = {PersistentContactMap.EMPTY};
+        forEach((name, phones) -> copy[0] = copy[0].put(name, phones));
+        return new PhoneBookSnapshot(copy[0]);
+    }
+
+    /**
+     * @return number of contacts (int)
+     */
+    abstract int size();
+
+    /**
+     * @return true if store can be used from several threads without external locking (boolean)
+     */
+    abstract boolean isConcurrent();
+}
@@ -0,0 +1,68 @@
+package phone_book;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Default {@link ContactStore} that keeps every contact as a hash map entry with {@link PhoneSet} value.
+ * Concurrent store is based on {@link ConcurrentHashMap} and copy-on-write phone sets, so writes lock only
+ * the touched hash bin or phone set, and reads do not lock at all.
+ *
+ * @see PhoneSet
+ */
+class HeapContactStore extends ContactStore {
+
+    private final boolean concurrent;
+    private final Map<String, PhoneSet> contacts;
+
+    HeapContactStore(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.contacts = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    @Override
+    boolean addContact(String name) {
+        return contacts.putIfAbsent(name, new PhoneSet(concurrent)) == null;
+    }
+
+    @Override
+    boolean addPhone(String name, long phone) {
+        PhoneSet phones = contacts.get(name);
+        return phones != null && phones.add(phone);
+    }
+
+    @Override
+    long[] removeContact(String name) {
+        PhoneSet phones = contacts.remove(name);
+        return phones == null ? null : phones.toArray();
+    }
+
+    @Override
+    boolean removePhone(String name, long phone) {
+        PhoneSet phones = contacts.get(name);
+        return phones != null && phones.remove(phone);
+    }
+
+    @Override
+    long[] getPhones(String name) {
+        PhoneSet phones = contacts.get(name);
+        return phones == null ? null : phones.toArray();
+    }
+
+    @Override
+    void forEach(BiConsumer<String, long[]> action) {
+        contacts.forEach((name, phones) -> action.accept(name, phones.toArray()));
+    }
+
+    @Override
+    int size() {
+        return contacts.size();
+    }
+
+    @Override
+    boolean isConcurrent() {
+        return concurrent;
+    }
+}
@@ -0,0 +1,109 @@
+package phone_book;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of non-negative values with log-linear buckets, the way HdrHistogram keeps them:
+ * every power of two range is split into {@link #SUB_BUCKET_COUNT} equal buckets, so any recorded value is
+ * reported with relative error below 1/{@link #SUB_BUCKET_COUNT} (about 3%), and values up to {@link #MAX_VALUE}
+ * take only 1280 buckets. Recording is one atomic increment of bucket and does not allocate.
+ * Values over {@link #MAX_VALUE} are counted in the last bucket, but their mean and maximum stay exact.
+ */
+final class LogHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    //2^44 nanoseconds is almost five hours
+    static final long MAX_VALUE = (1L << 44) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param value recorded value, negative values are recorded as 0 (long)
+     */
+    void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return number of recorded values (long)
+     */
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return mean of recorded values, or 0 if there are none (double)
+     */
+    double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @return largest recorded value (long)
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Finds value which given percent of recorded values do not exceed. Value is the highest value of its bucket,
+     * but never more than the largest recorded value.
+     *
+     * @param percentile percent of values, from 0 to 100 (double)
+     * @return value at percentile, or 0 if there are no values (long)
+     */
+    long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(lowestValueOf(i + 1) - 1, getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Drops all recorded values. Values recorded while resetting may be partly kept.
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Values below 2 * {@link #SUB_BUCKET_COUNT} have a bucket each, bigger values lose their lowest bits.
+     */
+    static int indexOf(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long lowestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        return ((index & (SUB_BUCKET_COUNT - 1)) + (long) SUB_BUCKET_COUNT) << shift;
+    }
+}
@@ -0,0 +1,702 @@
+package phone_book;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Search index over contact names used by {@link PhoneBook}. Keeps two structures up to date on every
+ * {@link #add(String)}: a character trie answering prefix queries ({@link #findByPrefix(String)}) and an
+ * n-gram index answering substring queries ({@link #findContaining(String)}).
+ * N-gram index stores every substring of lower case form of a name up to {@link #GRAM_LENGTH} characters long,
+ * so the same postings answer both case-sensitive and case-insensitive substring queries
+ * ({@link #findContainingIgnoreCase(String)}): short queries are answered by one posting, and longer ones by
+ * intersection of postings of all their grams, which leaves for verification only names sharing every gram
+ * of the query. Only the query is lowered, names are verified by comparing characters regardless of case.
+ * Postings are compact: most names of a posting are kept in a sorted array costing one reference per name,
+ * and only recently added ones in a small sorted set.
+ * Both queries return names in natural order.
+ * Removal is cheap: {@link #remove(String)} only clears the name in its trie node and puts it into the set of
+ * tombstones, which substring queries filter out. {@link #compact()} later purges tombstoned names from postings
+ * and prunes trie branches left empty.
+ * Concurrent index is built on concurrent maps and sets, so it can be read without locking while names are added
+ * or removed. Adding and removing name takes read lock of one {@link StripedLock} stripe only, so writers of
+ * different names don't contend on a lock. Compaction excludes adding and removing names, but never blocks readers.
+ *
+ * @see PhoneBook
+ */
+class NameIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private static final int COMPACTION_BATCH_SIZE = 256;
+
+    private final boolean concurrent;
+    private final TrieNode root;
+    private final Map<String, Posting> gramMap;
+    private final Set<String> tombstones;
+    private final StripedLock structureLock = new StripedLock();
+
+    NameIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.root = new TrieNode(concurrent);
+        this.gramMap = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.tombstones = concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+
+    /**
+     * Adds name to the index. Adding removed name which is not compacted yet just revives it.
+     *
+     * @param name contact name (String)
+     */
+    void add(String name) {
+        Lock lock = structureLock.readLock(name.hashCode());
+        lock.lock();
+        try {
+            TrieNode node = root;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.children.computeIfAbsent(name.charAt(i), c -> new TrieNode(concurrent));
+            }
+            node.name = name;
+
+            forEachGram(name, gram -> gramMap.computeIfAbsent(gram, g -> new Posting(concurrent)).add(name));
+            tombstones.remove(name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds many names at once, building every touched posting once instead of name by name.
+     * Excludes adding and removing names while building, but never blocks readers.
+     *
+     * @param names contact names (Collection of Strings)
+     */
+    void addAll(Collection<String> names) {
+        Map<String, List<String>> namesByGram = new HashMap<>();
+        for (String name : names) {
+            forEachGram(name, gram -> namesByGram.computeIfAbsent(gram, g -> new ArrayList<>()).add(name));
+        }
+        structureLock.lockAll();
+        try {
+            for (String name : names) {
+                TrieNode node = root;
+                for (int i = 0; i < name.length(); i++) {
+                    node = node.children.computeIfAbsent(name.charAt(i), c -> new TrieNode(concurrent));
+                }
+                node.name = name;
+                tombstones.remove(name);
+            }
+            namesByGram.forEach((gram, gramNames) ->
+                    gramMap.computeIfAbsent(gram, g -> new Posting(concurrent)).addAll(gramNames));
+        } finally {
+            structureLock.unlockAll();
+        }
+    }
+
+    /**
+     * Removes name from the index. Name disappears from all queries at once, but its postings are kept
+     * until {@link #compact()}.
+     *
+     * @param name contact name (String)
+     */
+    void remove(String name) {
+        Lock lock = structureLock.readLock(name.hashCode());
+        lock.lock();
+        try {
+            TrieNode node = find(name);
+            if (node == null || node.name == null) return;
+            tombstones.add(name);
+            node.name = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of removed names not compacted yet (int)
+     */
+    int getTombstoneCount() {
+        return tombstones.size();
+    }
+
+    /**
+     * Purges removed names from postings and prunes trie branches without names. Every posting holding removed
+     * names is rebuilt once, and postings and names are purged one by one, each excluding adds and removals,
+     * while queries go on.
+     */
+    void compact() {
+        List<String> removedNames = new ArrayList<>(tombstones);
+        Set<String> grams = new HashSet<>();
+        for (String name : removedNames) {
+            forEachGram(name, grams::add);
+        }
+        for (String gram : grams) {
+            structureLock.lockAll();
+            try {
+                Posting posting = gramMap.get(gram);
+                if (posting != null && posting.removeAll(tombstones) == 0) gramMap.remove(gram);
+            } finally {
+                structureLock.unlockAll();
+            }
+        }
+        for (int from = 0; from < removedNames.size(); from += COMPACTION_BATCH_SIZE) {
+            structureLock.lockAll();
+            try {
+                int to = Math.min(from + COMPACTION_BATCH_SIZE, removedNames.size());
+                for (String name : removedNames.subList(from, to)) {
+                    //name may have been added again since it was removed
+                    if (tombstones.remove(name)) purge(name);
+                }
+            } finally {
+                structureLock.unlockAll();
+            }
+        }
+    }
+
+    /**
+     * Finds all names starting with given prefix by walking the trie down to the prefix node and collecting
+     * its subtree.
+     *
+     * @param prefix beginning of name (String)
+     * @return sorted set of found names, empty if nothing found
+     */
+    Set<String> findByPrefix(String prefix) {
+        return streamByPrefix(prefix, null).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Finds all names containing given part. Names are checked only if they are found in postings of all grams
+     * of the part.
+     *
+     * @param part part of name (String)
+     * @return sorted set of found names, empty if nothing found
+     */
+    Set<String> findContaining(String part) {
+        return streamContaining(part, null).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Finds all names containing given part regardless of case.
+     *
+     * @param part part of name in any case (String)
+     * @return sorted set of found names, empty if nothing found
+     */
+    Set<String> findContainingIgnoreCase(String part) {
+        return streamCandidates(fold(part), null)
+                .filter(name -> containsIgnoreCase(name, part))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Lazily walks the trie subtree of given prefix. Names are produced one by one while stream is consumed.
+     *
+     * @param prefix beginning of name (String)
+     * @param after  name to start after, or null to start from the first name (String)
+     * @return sorted stream of names starting with prefix and greater than after
+     */
+    Stream<String> streamByPrefix(String prefix, String after) {
+        TrieNode node = find(prefix);
+        if (node == null) return Stream.empty();
+        TrieIterator iterator = new TrieIterator();
+        if (after == null || after.compareTo(prefix) < 0) {
+            iterator.startAt(node);
+        } else if (after.startsWith(prefix)) {
+            iterator.startAfter(node, prefix.length(), after);
+        } else {
+            //every name starting with prefix is less than after
+            return Stream.empty();
+        }
+        return stream(iterator);
+    }
+
+    /**
+     * Lazily finds names containing given part. Candidates are taken from the posting of the part itself, or from
+     * intersection of postings of all its grams, and only as many of them are checked as stream consumer takes.
+     *
+     * @param part  part of name (String)
+     * @param after name to start after, or null to start from the first name (String)
+     * @return sorted stream of names containing part and greater than after
+     */
+    Stream<String> streamContaining(String part, String after) {
+        if (part.isEmpty()) return streamByPrefix(part, after);
+        return streamCandidates(fold(part), after).filter(name -> name.contains(part));
+    }
+
+    /**
+     * Lazily finds names which lower case forms may contain given lower case part.
+     *
+     * @return sorted stream of live candidate names greater than after
+     */
+    private Stream<String> streamCandidates(String foldedPart, String after) {
+        if (foldedPart.isEmpty()) return streamByPrefix(foldedPart, after);
+        if (foldedPart.length() <= GRAM_LENGTH) {
+            Posting posting = gramMap.get(foldedPart);
+            return posting == null ? Stream.empty() : live(stream(posting.iterator(after)));
+        }
+
+        Map<String, Posting> postings = new HashMap<>();
+        for (int start = 0; start + GRAM_LENGTH <= foldedPart.length(); start++) {
+            String gram = foldedPart.substring(start, start + GRAM_LENGTH);
+            Posting posting = gramMap.get(gram);
+            if (posting == null) return Stream.empty();
+            postings.put(gram, posting);
+        }
+        Posting[] sortedPostings = postings.values().toArray(new Posting[0]);
+        Arrays.sort(sortedPostings, Comparator.comparingInt(posting -> posting.size));
+        return live(stream(new IntersectionIterator(sortedPostings, after)));
+    }
+
+    /**
+     * Finds names closest to given query by Levenshtein edit distance. Trie is walked depth-first while one row of
+     * edit distance matrix is computed per trie node, and subtree is skipped as soon as the smallest value of its
+     * row exceeds the distance bound, so only a small part of the trie is visited. Once {@code limit} names are found,
+     * the bound shrinks to the distance of the worst of them. Names come in natural order during the walk, so names
+     * found later lose ties to names already found.
+     *
+     * @param query       name to search for (String)
+     * @param limit       maximum number of found names (int)
+     * @param maxDistance maximum edit distance of found name (int)
+     * @return found names sorted by distance, then by name (List of Strings)
+     */
+    List<String> findSimilar(String query, int limit, int maxDistance) {
+        PriorityQueue<Match> matches = new PriorityQueue<>(limit + 1, Comparator.reverseOrder());
+        int[] firstRow = new int[query.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) firstRow[i] = i;
+
+        if (root.name != null && firstRow[query.length()] <= maxDistance) {
+            matches.add(new Match(root.name, firstRow[query.length()]));
+        }
+        for (Map.Entry<Character, TrieNode> child : root.children.entrySet()) {
+            collectSimilar(child.getValue(), child.getKey(), query, firstRow, limit, maxDistance, matches);
+        }
+
+        List<Match> sortedMatches = new ArrayList<>(matches);
+        Collections.sort(sortedMatches);
+        List<String> foundNames = new ArrayList<>(sortedMatches.size());
+        for (Match match : sortedMatches) foundNames.add(match.name);
+        return foundNames;
+    }
+
+    private void collectSimilar(TrieNode node, char c, String query, int[] previousRow, int limit, int maxDistance,
+                                PriorityQueue<Match> matches) {
+        int[] row = new int[previousRow.length];
+        row[0] = previousRow[0] + 1;
+        int rowMinimum = row[0];
+        for (int j = 1; j < row.length; j++) {
+            int substitution = previousRow[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+            row[j] = Math.min(substitution, Math.min(previousRow[j] + 1, row[j - 1] + 1));
+            rowMinimum = Math.min(rowMinimum, row[j]);
+        }
+
+        int distance = row[row.length - 1];
+        String name = node.name;
+        if (name != null && distance <= bound(matches, limit, maxDistance)) {
+            matches.add(new Match(name, distance));
+            if (matches.size() > limit) matches.poll();
+        }
+        if (rowMinimum > bound(matches, limit, maxDistance)) return;
+        for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+            collectSimilar(child.getValue(), child.getKey(), query, row, limit, maxDistance, matches);
+        }
+    }
+
+    /**
+     * @return largest distance a name found from now on may have
+     */
+    private static int bound(PriorityQueue<Match> matches, int limit, int maxDistance) {
+        if (matches.size() < limit) return maxDistance;
+        return Math.min(maxDistance, matches.peek().distance - 1);
+    }
+
+    /**
+     * Filters out removed names, which stay in postings until compaction.
+     */
+    private Stream<String> live(Stream<String> names) {
+        if (tombstones.isEmpty()) return names;
+        return names.filter(name -> !tombstones.contains(name));
+    }
+
+    private TrieNode find(String prefix) {
+        TrieNode node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Drops removed name from postings still holding it, which happens when name was added and removed again
+     * while its postings were rebuilt, and prunes its trie path from the end while nodes are empty.
+     * Must be called under write lock.
+     */
+    private void purge(String name) {
+        forEachGram(name, gram -> {
+            Posting posting = gramMap.get(gram);
+            if (posting != null && posting.contains(name) && posting.removeAll(Collections.singleton(name)) == 0) {
+                gramMap.remove(gram);
+            }
+        });
+
+        TrieNode[] path = new TrieNode[name.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < name.length(); i++) {
+            path[i + 1] = path[i].children.get(name.charAt(i));
+            if (path[i + 1] == null) return;
+        }
+        for (int i = name.length(); i > 0; i--) {
+            TrieNode node = path[i];
+            if (node.name != null || !node.children.isEmpty()) break;
+            path[i - 1].children.remove(name.charAt(i - 1));
+        }
+    }
+
+    /**
+     * Passes every substring of lower case form of name up to {@link #GRAM_LENGTH} characters long to action.
+     */
+    private static void forEachGram(String name, Consumer<String> action) {
+        String foldedName = fold(name);
+        for (int start = 0; start < foldedName.length(); start++) {
+            int maxEnd = Math.min(start + GRAM_LENGTH, foldedName.length());
+            for (int end = start + 1; end <= maxEnd; end++) {
+                action.accept(foldedName.substring(start, end));
+            }
+        }
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean containsIgnoreCase(String name, String part) {
+        for (int start = 0; start + part.length() <= name.length(); start++) {
+            if (name.regionMatches(true, start, part, 0, part.length())) return true;
+        }
+        return false;
+    }
+
+    private static Stream<String> stream(Iterator<String> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Depth-first pre-order trie iterator. Name of a node is less than names of its subtree, and children are
+     * sorted, so names come in natural order.
+     */
+    private static class TrieIterator implements Iterator<String> {
+        private final Deque<Iterator<TrieNode>> stack = new ArrayDeque<>();
+        private String nextName;
+
+        private void startAt(TrieNode node) {
+            nextName = node.name;
+            stack.push(node.children.values().iterator());
+        }
+
+        /**
+         * Positions iterator right after given name: for every node on the path of the name only children greater
+         * than the next character of the name are left to visit.
+         */
+        private void startAfter(TrieNode node, int depth, String after) {
+            for (int i = depth; i < after.length() && node != null; i++) {
+                char c = after.charAt(i);
+                stack.push(node.children.tailMap(c, false).values().iterator());
+                node = node.children.get(c);
+            }
+            if (node != null) stack.push(node.children.values().iterator());
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextName == null && !stack.isEmpty()) {
+                Iterator<TrieNode> top = stack.peek();
+                if (!top.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                TrieNode node = top.next();
+                stack.push(node.children.values().iterator());
+                nextName = node.name;
+            }
+            return nextName != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String name = nextName;
+            nextName = null;
+            return name;
+        }
+    }
+
+    /**
+     * Name found by fuzzy search. Matches are ordered by distance, then by name.
+     */
+    private static class Match implements Comparable<Match> {
+        private final String name;
+        private final int distance;
+
+        private Match(String name, int distance) {
+            this.name = name;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (distance != other.distance) return Integer.compare(distance, other.distance);
+            return name.compareTo(other.name);
+        }
+    }
+
+    /**
+     * Trie node. Children are kept sorted so subtree walk returns names in natural order.
+     * Terminal nodes hold reference to the indexed name.
+     */
+    private static class TrieNode {
+        private final NavigableMap<Character, TrieNode> children;
+        private volatile String name;
+
+        private TrieNode(boolean concurrent) {
+            this.children = concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+        }
+    }
+
+    /**
+     * Leapfrog intersection of postings: candidate name is moved forward to the smallest name of the next posting
+     * not less than it, going around postings until all of them agree on it. Postings are sorted by size, so
+     * candidates are taken from the rarest one, and every step skips all names missing in some posting.
+     */
+    private static class IntersectionIterator implements Iterator<String> {
+        private final Posting[] postings;
+        private String lastName;
+        private String nextName;
+        private boolean finished;
+
+        private IntersectionIterator(Posting[] postings, String after) {
+            this.postings = postings;
+            this.lastName = after;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextName != null || finished) return !finished;
+            String candidate = lastName == null ? postings[0].ceiling("", true) : postings[0].ceiling(lastName, false);
+            int agreed = 1;
+            for (int i = 1 % postings.length; candidate != null && agreed < postings.length;
+                 i = (i + 1) % postings.length) {
+                String found = postings[i].ceiling(candidate, true);
+                if (candidate.equals(found)) {
+                    agreed++;
+                } else {
+                    candidate = found;
+                    agreed = 1;
+                }
+            }
+            if (candidate == null) finished = true;
+            nextName = candidate;
+            lastName = candidate;
+            return !finished;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String name = nextName;
+            nextName = null;
+            return name;
+        }
+    }
+
+    /**
+     * Sorted set of names sharing one gram. Most names are kept in a sorted array, and names added since the array
+     * was built are kept in a sorted set, which is merged into the array once it grows to {@link #MERGE_FRACTION}
+     * of the array, so a posting costs about one reference per name and adding a name costs amortized O(log n).
+     * Array and set are swapped together as one {@link Segments} object, so readers never lock. Writers of one
+     * posting hold its monitor only to add the name to the set, and the writer that starts a merge builds the new
+     * array without it: names added meanwhile go to the old set, which readers still see, and are also noted aside,
+     * so only they are carried into the new set when segments are swapped.
+     */
+    private static class Posting {
+        private static final int MIN_MERGE_SIZE = 16;
+        private static final int MERGE_FRACTION = 8;
+
+        private final boolean concurrent;
+        private volatile Segments segments;
+        private volatile int size;
+        private int recentSize;
+        //names added while array is being merged, or null if no merge is running, guarded by this
+        private List<String> addedWhileMerging;
+
+        private Posting(boolean concurrent) {
+            this.concurrent = concurrent;
+            this.segments = new Segments(new String[0], concurrent);
+        }
+
+        private void add(String name) {
+            Segments current;
+            synchronized (this) {
+                current = segments;
+                if (Arrays.binarySearch(current.names, name) >= 0 || !current.recentNames.add(name)) return;
+                size++;
+                recentSize++;
+                if (addedWhileMerging != null) {
+                    addedWhileMerging.add(name);
+                    return;
+                }
+                if (recentSize < Math.max(MIN_MERGE_SIZE, current.names.length / MERGE_FRACTION)) return;
+                addedWhileMerging = new ArrayList<>();
+            }
+            merge(current);
+        }
+
+        /**
+         * Merges recently added names into the array outside of the monitor, then swaps segments carrying over
+         * names added while merging. Merges don't overlap, and compaction doesn't run while index is changed.
+         */
+        private void merge(Segments current) {
+            List<String> names = new ArrayList<>(size);
+            iterator(current, null).forEachRemaining(names::add);
+            String[] mergedNames = names.toArray(new String[0]);
+            synchronized (this) {
+                Segments merged = new Segments(mergedNames, concurrent);
+                for (String name : addedWhileMerging) {
+                    if (Arrays.binarySearch(mergedNames, name) < 0) merged.recentNames.add(name);
+                }
+                segments = merged;
+                recentSize = merged.recentNames.size();
+                size = mergedNames.length + recentSize;
+                addedWhileMerging = null;
+            }
+        }
+
+        /**
+         * Merges given names into the array at once.
+         */
+        private synchronized void addAll(List<String> addedNames) {
+            Collections.sort(addedNames);
+            List<String> names = new ArrayList<>(size + addedNames.size());
+            Iterator<String> oldNames = iterator(null);
+            String oldName = oldNames.hasNext() ? oldNames.next() : null;
+            for (String addedName : addedNames) {
+                while (oldName != null && oldName.compareTo(addedName) < 0) {
+                    names.add(oldName);
+                    oldName = oldNames.hasNext() ? oldNames.next() : null;
+                }
+                //name may repeat a gram, or be in posting already
+                if (addedName.equals(oldName) || !names.isEmpty() && addedName.equals(names.get(names.size() - 1))) {
+                    continue;
+                }
+                names.add(addedName);
+            }
+            while (oldName != null) {
+                names.add(oldName);
+                oldName = oldNames.hasNext() ? oldNames.next() : null;
+            }
+            segments = new Segments(names.toArray(new String[0]), concurrent);
+            size = names.size();
+            recentSize = 0;
+        }
+
+        /**
+         * Removes given names by rebuilding the array.
+         *
+         * @return number of names left (int)
+         */
+        private synchronized int removeAll(Set<String> removedNames) {
+            rebuild(removedNames);
+            return size;
+        }
+
+        private boolean contains(String name) {
+            Segments current = segments;
+            return Arrays.binarySearch(current.names, name) >= 0 || current.recentNames.contains(name);
+        }
+
+        /**
+         * @return least name greater than given one, or equal to it if inclusive, or null if there is no such name
+         */
+        private String ceiling(String name, boolean inclusive) {
+            Segments current = segments;
+            int i = indexAfter(current.names, name, inclusive);
+            String fromArray = i < current.names.length ? current.names[i] : null;
+            String fromSet = inclusive ? current.recentNames.ceiling(name) : current.recentNames.higher(name);
+            if (fromArray == null) return fromSet;
+            if (fromSet == null) return fromArray;
+            return fromArray.compareTo(fromSet) <= 0 ? fromArray : fromSet;
+        }
+
+        /**
+         * @return iterator of names greater than after in natural order, merging the array with the set
+         */
+        private Iterator<String> iterator(String after) {
+            return iterator(segments, after);
+        }
+
+        private static Iterator<String> iterator(Segments current, String after) {
+            String[] names = current.names;
+            Iterator<String> recentNames =
+                    (after == null ? current.recentNames : current.recentNames.tailSet(after, false)).iterator();
+            int from = after == null ? 0 : indexAfter(names, after, false);
+            return new Iterator<>() {
+                private int i = from;
+                private String recentName = recentNames.hasNext() ? recentNames.next() : null;
+
+                @Override
+                public boolean hasNext() {
+                    return i < names.length || recentName != null;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    if (recentName == null || i < names.length && names[i].compareTo(recentName) < 0) return names[i++];
+                    String name = recentName;
+                    recentName = recentNames.hasNext() ? recentNames.next() : null;
+                    return name;
+                }
+            };
+        }
+
+        /**
+         * Merges recently added names into the array, leaving out given names. Must be called under monitor.
+         */
+        private void rebuild(Set<String> removedNames) {
+            List<String> names = new ArrayList<>(size);
+            iterator(null).forEachRemaining(name -> {
+                if (!removedNames.contains(name)) names.add(name);
+            });
+            segments = new Segments(names.toArray(new String[0]), concurrent);
+            size = names.size();
+            recentSize = 0;
+        }
+
+        /**
+         * @return index of the first name greater than given one, or equal to it if inclusive
+         */
+        private static int indexAfter(String[] names, String name, boolean inclusive) {
+            int i = Arrays.binarySearch(names, name);
+            if (i < 0) return -i - 1;
+            return inclusive ? i : i + 1;
+        }
+    }
+
+    /**
+     * Sorted array of names of a posting and set of names added to posting since the array was built.
+     */
+    private static class Segments {
+        private final String[] names;
+        private final NavigableSet<String> recentNames;
+
+        private Segments(String[] names, boolean concurrent) {
+            this.names = names;
+            this.recentNames = concurrent ? new ConcurrentSkipListSet<>() : new TreeSet<>();
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package phone_book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link ContactStore} that keeps contact names and phones outside of Java heap, in an arena of direct
+ * {@link ByteBuffer} chunks. Every contact is one arena record:
+ * <pre>
+ * [int name length][name bytes, UTF-8][int phone count][int phone capacity][long phones, capacity times]
+ * </pre>
+ * Records are found by an open-addressing hash table made of two primitive arrays (record addresses and name
+ * hashes), so the store creates no per-contact heap objects at all and adds almost nothing for garbage collector
+ * to trace. When record runs out of phone capacity, it is copied into a twice larger one, and old record space
+ * becomes garbage, as does the record of removed contact. {@link #compact()} reclaims garbage by copying live
+ * records into fresh chunks and dropping the old ones. Indexes of dropped chunks are reused by new chunks.
+ * Store is thread-safe: reads share a read lock, writes take a write lock.
+ * Arena size is limited by maximum direct memory size of JVM (-XX:MaxDirectMemorySize).
+ * <p>
+ * Only the store itself is off heap. {@link PhoneBook} still keeps its search indexes on heap: name trie, n-gram
+ * postings, collation keys and phone trie hold a name string and several nodes per contact, so heap footprint
+ * of phone book on this store still grows with number of contacts, though much slower than on heap store.
+ *
+ * @see PhoneBook#PhoneBook(ContactStore)
+ */
+public class OffHeapContactStore extends ContactStore {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int INITIAL_TABLE_CAPACITY = 1024;
+    private static final int INITIAL_PHONE_CAPACITY = 2;
+    private static final int COMPACTION_BATCH_SIZE = 1024;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final Deque<Integer> freeChunkIndexes = new ArrayDeque<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object compactionLock = new Object();
+    private long[] addresses = new long[INITIAL_TABLE_CAPACITY];
+    private int[] hashes = new int[INITIAL_TABLE_CAPACITY];
+    private int size;
+    private ByteBuffer currentChunk;
+    private int currentChunkIndex;
+    private long usedBytes;
+    private long garbageBytes;
+    private int shiftCount;
+
+    /**
+     * Creates store with chunks of {@link #DEFAULT_CHUNK_SIZE} bytes.
+     */
+    public OffHeapContactStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates store.
+     *
+     * @param chunkSize size of one arena chunk in bytes, records larger than chunk get their own chunk (int)
+     * @throws IllegalArgumentException if chunk size is not positive
+     */
+    public OffHeapContactStore(int chunkSize) throws IllegalArgumentException {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return bytes of arena occupied by records, including abandoned ones (long)
+     */
+    public long getUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes of arena occupied by records abandoned after growing phone capacity or removing contact (long)
+     */
+    public long getGarbageBytes() {
+        lock.readLock().lock();
+        try {
+            return garbageBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    boolean addContact(String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(name);
+        lock.writeLock().lock();
+        try {
+            if (findSlot(nameBytes, hash) >= 0) return false;
+            if ((size + 1) * 2 > addresses.length) resizeTable();
+
+            long address = allocate(recordSize(nameBytes.length, INITIAL_PHONE_CAPACITY));
+            ByteBuffer chunk = chunk(address);
+            int offset = offset(address);
+            chunk.putInt(offset, nameBytes.length);
+            chunk.put(offset + 4, nameBytes);
+            chunk.putInt(phoneCountOffset(offset, nameBytes.length), 0);
+            chunk.putInt(phoneCountOffset(offset, nameBytes.length) + 4, INITIAL_PHONE_CAPACITY);
+
+            insertSlot(address, hash);
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    boolean addPhone(String name, long phone) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(name);
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(nameBytes, hash);
+            if (slot < 0) return false;
+
+            long address = addresses[slot] - 1;
+            ByteBuffer chunk = chunk(address);
+            int offset = offset(address);
+            int countOffset = phoneCountOffset(offset, nameBytes.length);
+            int phoneCount = chunk.getInt(countOffset);
+            int phoneCapacity = chunk.getInt(countOffset + 4);
+            for (int i = 0; i < phoneCount; i++) {
+                if (chunk.getLong(countOffset + 8 + i * 8) == phone) return false;
+            }
+
+            if (phoneCount == phoneCapacity) {
+                //moving record to a twice larger one
+                int oldSize = recordSize(nameBytes.length, phoneCapacity);
+                long newAddress = allocate(recordSize(nameBytes.length, phoneCapacity * 2));
+                ByteBuffer newChunk = chunk(newAddress);
+                int newOffset = offset(newAddress);
+                newChunk.put(newOffset, chunk, offset, oldSize);
+                newChunk.putInt(phoneCountOffset(newOffset, nameBytes.length) + 4, phoneCapacity * 2);
+                addresses[slot] = newAddress + 1;
+                garbageBytes += oldSize;
+
+                chunk = newChunk;
+                countOffset = phoneCountOffset(newOffset, nameBytes.length);
+            }
+            chunk.putLong(countOffset + 8 + phoneCount * 8, phone);
+            chunk.putInt(countOffset, phoneCount + 1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    long[] removeContact(String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(name);
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(nameBytes, hash);
+            if (slot < 0) return null;
+
+            long address = addresses[slot] - 1;
+            ByteBuffer chunk = chunk(address);
+            int countOffset = phoneCountOffset(offset(address), nameBytes.length);
+            long[] phones = readPhones(chunk, countOffset);
+            garbageBytes += recordSize(nameBytes.length, chunk.getInt(countOffset + 4));
+            deleteSlot(slot);
+            size--;
+            return phones;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    boolean removePhone(String name, long phone) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(name);
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(nameBytes, hash);
+            if (slot < 0) return false;
+
+            long address = addresses[slot] - 1;
+            ByteBuffer chunk = chunk(address);
+            int countOffset = phoneCountOffset(offset(address), nameBytes.length);
+            int phoneCount = chunk.getInt(countOffset);
+            for (int i = 0; i < phoneCount; i++) {
+                if (chunk.getLong(countOffset + 8 + i * 8) == phone) {
+                    //following phones are shifted back, so phones stay in order they were added
+                    for (int j = i + 1; j < phoneCount; j++) {
+                        chunk.putLong(countOffset + j * 8, chunk.getLong(countOffset + 8 + j * 8));
+                    }
+                    chunk.putInt(countOffset, phoneCount - 1);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copies live records into fresh chunks, trimming their phone capacity, and drops chunks that held them.
+     * Records are moved in small batches, each under write lock, so lookups wait for one batch at most.
+     * Store may be changed while compacting: removal may shift a record not scanned yet back into scanned slots,
+     * so if any record was shifted, the table is scanned once more before old chunks are dropped.
+     * Does nothing if there is no garbage.
+     */
+    @Override
+    void compact() {
+        synchronized (compactionLock) {
+            BitSet fromChunks = new BitSet();
+            long fromUsedBytes;
+            int fromShiftCount;
+            lock.writeLock().lock();
+            try {
+                if (garbageBytes == 0) return;
+                //records allocated from now on go to new chunks
+                for (int i = 0; i < chunks.size(); i++) {
+                    if (chunks.get(i) != null) fromChunks.set(i);
+                }
+                fromUsedBytes = usedBytes;
+                fromShiftCount = shiftCount;
+                currentChunk = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long[] scannedAddresses = null;
+            int slot = 0;
+            while (true) {
+                lock.writeLock().lock();
+                try {
+                    //table was resized by writer, records already moved are skipped on the second pass
+                    if (addresses != scannedAddresses) {
+                        scannedAddresses = addresses;
+                        slot = 0;
+                    }
+                    if (slot == addresses.length) break;
+                    int end = Math.min(slot + COMPACTION_BATCH_SIZE, addresses.length);
+                    moveRecords(fromChunks, slot, end);
+                    slot = end;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                //record shifted by removal may have skipped the scan
+                if (shiftCount != fromShiftCount) moveRecords(fromChunks, 0, addresses.length);
+                for (int i = fromChunks.nextSetBit(0); i >= 0; i = fromChunks.nextSetBit(i + 1)) {
+                    chunks.set(i, null);
+                    freeChunkIndexes.push(i);
+                }
+                //every byte of old chunks is garbage now
+                usedBytes -= fromUsedBytes;
+                garbageBytes -= fromUsedBytes;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    long[] getPhones(String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(name);
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(nameBytes, hash);
+            if (slot < 0) return null;
+            long address = addresses[slot] - 1;
+            return readPhones(chunk(address), phoneCountOffset(offset(address), nameBytes.length));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes every contact to given action. Action is called under read lock, so it must not modify the store.
+     */
+    @Override
+    void forEach(BiConsumer<String, long[]> action) {
+        lock.readLock().lock();
+        try {
+            for (long storedAddress : addresses) {
+                if (storedAddress == 0) continue;
+                long address = storedAddress - 1;
+                ByteBuffer chunk = chunk(address);
+                int offset = offset(address);
+                int nameLength = chunk.getInt(offset);
+                byte[] nameBytes = new byte[nameLength];
+                chunk.get(offset + 4, nameBytes);
+                action.accept(new String(nameBytes, StandardCharsets.UTF_8),
+                        readPhones(chunk, phoneCountOffset(offset, nameLength)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    boolean isConcurrent() {
+        return true;
+    }
+
+    /**
+     * Finds table slot of contact.
+     *
+     * @return slot index, or -1 if there is no such contact
+     */
+    private int findSlot(byte[] nameBytes, int hash) {
+        int mask = addresses.length - 1;
+        for (int slot = hash & mask; addresses[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && nameEquals(addresses[slot] - 1, nameBytes)) return slot;
+        }
+        return -1;
+    }
+
+    private void insertSlot(long address, int hash) {
+        int mask = addresses.length - 1;
+        int slot = hash & mask;
+        while (addresses[slot] != 0) slot = (slot + 1) & mask;
+        addresses[slot] = address + 1;
+        hashes[slot] = hash;
+    }
+
+    /**
+     * Empties table slot, shifting following records of the probe chain back, so lookups never stop at the hole.
+     */
+    private void deleteSlot(int slot) {
+        int mask = addresses.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; addresses[next] != 0; next = (next + 1) & mask) {
+            int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                addresses[hole] = addresses[next];
+                hashes[hole] = hashes[next];
+                hole = next;
+                shiftCount++;
+            }
+        }
+        addresses[hole] = 0;
+        hashes[hole] = 0;
+    }
+
+    /**
+     * Moves records of given table slots that are kept in given chunks.
+     */
+    private void moveRecords(BitSet fromChunks, int fromSlot, int toSlot) {
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            long storedAddress = addresses[slot];
+            if (storedAddress != 0 && fromChunks.get((int) ((storedAddress - 1) >>> 32))) {
+                addresses[slot] = moveRecord(storedAddress - 1) + 1;
+            }
+        }
+    }
+
+    /**
+     * Copies record into newly allocated space with capacity trimmed to its phone count.
+     *
+     * @return new address of record
+     */
+    private long moveRecord(long address) {
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        int nameLength = chunk.getInt(offset);
+        int countOffset = phoneCountOffset(offset, nameLength);
+        int phoneCount = chunk.getInt(countOffset);
+        int phoneCapacity = Math.max(phoneCount, INITIAL_PHONE_CAPACITY);
+
+        long newAddress = allocate(recordSize(nameLength, phoneCapacity));
+        ByteBuffer newChunk = chunk(newAddress);
+        int newOffset = offset(newAddress);
+        newChunk.put(newOffset, chunk, offset, recordSize(nameLength, 0) + phoneCount * 8);
+        newChunk.putInt(phoneCountOffset(newOffset, nameLength) + 4, phoneCapacity);
+        garbageBytes += recordSize(nameLength, chunk.getInt(countOffset + 4));
+        return newAddress;
+    }
+
+    private void resizeTable() {
+        long[] oldAddresses = addresses;
+        int[] oldHashes = hashes;
+        addresses = new long[oldAddresses.length * 2];
+        hashes = new int[oldHashes.length * 2];
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] != 0) insertSlot(oldAddresses[i] - 1, oldHashes[i]);
+        }
+    }
+
+    private boolean nameEquals(long address, byte[] nameBytes) {
+        ByteBuffer chunk = chunk(address);
+        int offset = offset(address);
+        if (chunk.getInt(offset) != nameBytes.length) return false;
+        for (int i = 0; i < nameBytes.length; i++) {
+            if (chunk.get(offset + 4 + i) != nameBytes[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Allocates arena space for record.
+     *
+     * @return address of record: chunk index in high 32 bits, offset in chunk in low 32 bits
+     */
+    private long allocate(int recordSize) {
+        if (recordSize > chunkSize) {
+            usedBytes += recordSize;
+            return (long) addChunk(ByteBuffer.allocateDirect(recordSize)) << 32;
+        }
+        if (currentChunk == null || currentChunk.remaining() < recordSize) {
+            currentChunk = ByteBuffer.allocateDirect(chunkSize);
+            currentChunkIndex = addChunk(currentChunk);
+        }
+        int offset = currentChunk.position();
+        currentChunk.position(offset + recordSize);
+        usedBytes += recordSize;
+        return ((long) currentChunkIndex << 32) | offset;
+    }
+
+    /**
+     * @return index of added chunk, reusing index of a dropped chunk if there is one
+     */
+    private int addChunk(ByteBuffer chunk) {
+        Integer freeIndex = freeChunkIndexes.poll();
+        if (freeIndex == null) {
+            chunks.add(chunk);
+            return chunks.size() - 1;
+        }
+        chunks.set(freeIndex, chunk);
+        return freeIndex;
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static long[] readPhones(ByteBuffer chunk, int countOffset) {
+        long[] phones = new long[chunk.getInt(countOffset)];
+        for (int i = 0; i < phones.length; i++) {
+            phones[i] = chunk.getLong(countOffset + 8 + i * 8);
+        }
+        return phones;
+    }
+
+    private static int phoneCountOffset(int recordOffset, int nameLength) {
+        return recordOffset + 4 + nameLength;
+    }
+
+    private static int recordSize(int nameLength, int phoneCapacity) {
+        return 4 + nameLength + 8 + phoneCapacity * 8;
+    }
+
+    private static int hash(String name) {
+        int hash = name.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
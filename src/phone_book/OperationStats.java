@@ -0,0 +1,99 @@
+package phone_book;
+
+/**
+ * Statistics of one {@link PhoneBookMetrics.Operation} of phone book, taken at some moment.
+ * Latencies are in nanoseconds, and percentiles are accurate to about 3%.
+ *
+ * @see PhoneBookMetrics#getOperations()
+ */
+public final class OperationStats {
+
+    private final String operation;
+    private final long count;
+    private final double meanLatency;
+    private final long medianLatency;
+    private final long p99Latency;
+    private final long p999Latency;
+    private final long maxLatency;
+    private final double meanResultSize;
+    private final long p99ResultSize;
+    private final long maxResultSize;
+
+    OperationStats(String operation, LogHistogram latencies, LogHistogram resultSizes) {
+        this.operation = operation;
+        this.count = latencies.getCount();
+        this.meanLatency = latencies.getMean();
+        this.medianLatency = latencies.getValueAtPercentile(50);
+        this.p99Latency = latencies.getValueAtPercentile(99);
+        this.p999Latency = latencies.getValueAtPercentile(99.9);
+        this.maxLatency = latencies.getMax();
+        this.meanResultSize = resultSizes.getMean();
+        this.p99ResultSize = resultSizes.getValueAtPercentile(99);
+        this.maxResultSize = resultSizes.getMax();
+    }
+
+    /**
+     * @return operation name (String)
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return number of calls (long)
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanLatencyNanos() {
+        return meanLatency;
+    }
+
+    public long getMedianLatencyNanos() {
+        return medianLatency;
+    }
+
+    public long getP99LatencyNanos() {
+        return p99Latency;
+    }
+
+    public long getP999LatencyNanos() {
+        return p999Latency;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatency;
+    }
+
+    /**
+     * @return mean number of found contacts or phones, 0 for operations that don't find anything (double)
+     */
+    public double getMeanResultSize() {
+        return meanResultSize;
+    }
+
+    public long getP99ResultSize() {
+        return p99ResultSize;
+    }
+
+    public long getMaxResultSize() {
+        return maxResultSize;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats: (" +
+                "operation=" + operation +
+                ", count=" + count +
+                ", meanLatency=" + Math.round(meanLatency) +
+                ", medianLatency=" + medianLatency +
+                ", p99Latency=" + p99Latency +
+                ", p999Latency=" + p999Latency +
+                ", maxLatency=" + maxLatency +
+                ", meanResultSize=" + Math.round(meanResultSize) +
+                ", p99ResultSize=" + p99ResultSize +
+                ", maxResultSize=" + maxResultSize +
+                ')';
+    }
+}
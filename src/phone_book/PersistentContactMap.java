@@ -0,0 +1,288 @@
+package phone_book;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable map of contact names to packed phones, built as a hash array mapped trie (HAMT).
+ * Every level of the trie consumes 5 bits of name hash and keeps only present children in an array compressed by
+ * a 32-bit bitmap. {@link #put(String, long[])} and {@link #remove(String)} copy only the path from root to changed
+ * entry and share everything else with the old map, so old map stays valid and unchanged, and keeping it costs nothing.
+ * Subnode left with a single entry after removal is replaced by that entry, so removals don't leave long empty paths.
+ * Phone arrays stored in the map must never be modified.
+ *
+ * @see PersistentContactStore
+ */
+final class PersistentContactMap {
+
+    static final PersistentContactMap EMPTY = new PersistentContactMap(new BitmapNode(0, new Object[0]), 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int HASH_BITS = 32;
+
+    private final Node root;
+    private final int size;
+
+    private PersistentContactMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param name contact name (String)
+     * @return packed phones of contact, or null if there is no such contact (array of longs)
+     */
+    long[] get(String name) {
+        return root.get(name, hash(name), 0);
+    }
+
+    /**
+     * Returns map with given contact added or replaced. This map is not changed.
+     *
+     * @param name   contact name (String)
+     * @param phones packed phones of contact, must not be modified afterwards (array of longs)
+     * @return new map ({@link PersistentContactMap} object)
+     */
+    PersistentContactMap put(String name, long[] phones) {
+        boolean[] added = new boolean[1];
+        Node newRoot = root.put(new Entry(name, hash(name), phones), 0, added);
+        return new PersistentContactMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns map without given contact. This map is not changed.
+     *
+     * @param name contact name (String)
+     * @return new map, or this map if there is no such contact ({@link PersistentContactMap} object)
+     */
+    PersistentContactMap remove(String name) {
+        Node newRoot = root.remove(name, hash(name), 0);
+        if (newRoot == root) return this;
+        return new PersistentContactMap(newRoot == null ? EMPTY.root : newRoot, size - 1);
+    }
+
+    /**
+     * @return number of contacts (int)
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Passes every contact with its packed phones to given action, in hash order.
+     *
+     * @param action action ({@link BiConsumer} object)
+     */
+    void forEach(BiConsumer<String, long[]> action) {
+        root.forEach(action);
+    }
+
+    private static int hash(String name) {
+        int hash = name.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final int hash;
+        private final long[] phones;
+
+        private Entry(String name, int hash, long[] phones) {
+            this.name = name;
+            this.hash = hash;
+            this.phones = phones;
+        }
+    }
+
+    private abstract static class Node {
+        abstract long[] get(String name, int hash, int shift);
+
+        abstract Node put(Entry entry, int shift, boolean[] added);
+
+        /**
+         * @return node without entry, this node if there is no such entry, or null if node became empty
+         */
+        abstract Node remove(String name, int hash, int shift);
+
+        /**
+         * @return the only entry of node, or null if node has subnodes or more entries
+         */
+        abstract Entry singleEntry();
+
+        abstract void forEach(BiConsumer<String, long[]> action);
+    }
+
+    /**
+     * Trie node. Slot of a present child is either an {@link Entry} or a subnode.
+     */
+    private static final class BitmapNode extends Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        long[] get(String name, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return null;
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                return entry.name.equals(name) ? entry.phones : null;
+            }
+            return ((Node) slot).get(name, hash, shift + BITS);
+        }
+
+        @Override
+        Node put(Entry entry, int shift, boolean[] added) {
+            int bit = 1 << ((entry.hash >>> shift) & MASK);
+            int index = Integer.bitCount(bitmap & (bit - 1));
+
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = entry;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Entry) {
+                Entry existing = (Entry) slot;
+                if (existing.name.equals(entry.name)) {
+                    newSlot = entry;
+                } else {
+                    newSlot = merge(existing, entry, shift + BITS);
+                    added[0] = true;
+                }
+            } else {
+                newSlot = ((Node) slot).put(entry, shift + BITS, added);
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[index] = newSlot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        Node remove(String name, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return this;
+            int index = Integer.bitCount(bitmap & (bit - 1));
+
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Entry) {
+                if (!((Entry) slot).name.equals(name)) return this;
+                newSlot = null;
+            } else {
+                Node node = ((Node) slot).remove(name, hash, shift + BITS);
+                if (node == slot) return this;
+                Entry entry = node == null ? null : node.singleEntry();
+                newSlot = entry != null ? entry : node;
+            }
+
+            if (newSlot != null) {
+                Object[] newSlots = slots.clone();
+                newSlots[index] = newSlot;
+                return new BitmapNode(bitmap, newSlots);
+            }
+            if (slots.length == 1) return null;
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        @Override
+        Entry singleEntry() {
+            return slots.length == 1 && slots[0] instanceof Entry ? (Entry) slots[0] : null;
+        }
+
+        @Override
+        void forEach(BiConsumer<String, long[]> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Entry) action.accept(((Entry) slot).name, ((Entry) slot).phones);
+                else ((Node) slot).forEach(action);
+            }
+        }
+
+        private static Node merge(Entry first, Entry second, int shift) {
+            if (shift >= HASH_BITS) return new CollisionNode(new Entry[]{first, second});
+            int firstFragment = (first.hash >>> shift) & MASK;
+            int secondFragment = (second.hash >>> shift) & MASK;
+            if (firstFragment == secondFragment) {
+                return new BitmapNode(1 << firstFragment, new Object[]{merge(first, second, shift + BITS)});
+            }
+            Object[] newSlots = firstFragment < secondFragment
+                    ? new Object[]{first, second}
+                    : new Object[]{second, first};
+            return new BitmapNode((1 << firstFragment) | (1 << secondFragment), newSlots);
+        }
+    }
+
+    /**
+     * Node of entries which hashes are fully equal.
+     */
+    private static final class CollisionNode extends Node {
+        private final Entry[] entries;
+
+        private CollisionNode(Entry[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        long[] get(String name, int hash, int shift) {
+            for (Entry entry : entries) {
+                if (entry.name.equals(name)) return entry.phones;
+            }
+            return null;
+        }
+
+        @Override
+        Node put(Entry entry, int shift, boolean[] added) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].name.equals(entry.name)) {
+                    Entry[] newEntries = entries.clone();
+                    newEntries[i] = entry;
+                    return new CollisionNode(newEntries);
+                }
+            }
+            Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+            newEntries[entries.length] = entry;
+            added[0] = true;
+            return new CollisionNode(newEntries);
+        }
+
+        @Override
+        Node remove(String name, int hash, int shift) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].name.equals(name)) {
+                    if (entries.length == 1) return null;
+                    Entry[] newEntries = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, newEntries, 0, i);
+                    System.arraycopy(entries, i + 1, newEntries, i, entries.length - i - 1);
+                    return new CollisionNode(newEntries);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        Entry singleEntry() {
+            return entries.length == 1 ? entries[0] : null;
+        }
+
+        @Override
+        void forEach(BiConsumer<String, long[]> action) {
+            for (Entry entry : entries) {
+                action.accept(entry.name, entry.phones);
+            }
+        }
+    }
+}
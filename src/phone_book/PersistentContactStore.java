@@ -0,0 +1,132 @@
+package phone_book;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Lock-free {@link ContactStore} built on immutable {@link PersistentContactMap}. Current map is held in an
+ * {@link AtomicReference}: writer builds new map sharing almost everything with the current one and publishes it
+ * by compare-and-set, retrying if another writer was first. Taking a {@link #snapshot()} is just reading the
+ * reference, so snapshots are point-in-time, cost O(1), and never block or get blocked by writers.
+ * Adding contact together with phone is published as one change, so no snapshot sees contact without this phone.
+ *
+ * @see PhoneBook#snapshot()
+ */
+public class PersistentContactStore extends ContactStore {
+
+    private static final long[] NO_PHONES = new long[0];
+
+    private final AtomicReference<PersistentContactMap> map = new AtomicReference<>(PersistentContactMap.EMPTY);
+
+    @Override
+    boolean addContact(String name) {
+        while (true) {
+            PersistentContactMap current = map.get();
+            if (current.get(name) != null) return false;
+            if (map.compareAndSet(current, current.put(name, NO_PHONES))) return true;
+        }
+    }
+
+    @Override
+    boolean addPhone(String name, long phone) {
+        while (true) {
+            PersistentContactMap current = map.get();
+            long[] phones = current.get(name);
+            if (phones == null || contains(phones, phone)) return false;
+            if (map.compareAndSet(current, current.put(name, append(phones, phone)))) return true;
+        }
+    }
+
+    @Override
+    int addContactWithPhone(String name, long phone) {
+        while (true) {
+            PersistentContactMap current = map.get();
+            long[] phones = current.get(name);
+            int result = 0;
+            if (phones == null) {
+                phones = NO_PHONES;
+                result |= CONTACT_ADDED;
+            }
+            if (!contains(phones, phone)) {
+                phones = append(phones, phone);
+                result |= PHONE_ADDED;
+            }
+            if (result == 0) return 0;
+            if (map.compareAndSet(current, current.put(name, phones))) return result;
+        }
+    }
+
+    @Override
+    long[] removeContact(String name) {
+        while (true) {
+            PersistentContactMap current = map.get();
+            long[] phones = current.get(name);
+            if (phones == null) return null;
+            if (map.compareAndSet(current, current.remove(name))) return phones;
+        }
+    }
+
+    @Override
+    boolean removePhone(String name, long phone) {
+        while (true) {
+            PersistentContactMap current = map.get();
+            long[] phones = current.get(name);
+            if (phones == null || !contains(phones, phone)) return false;
+            if (map.compareAndSet(current, current.put(name, without(phones, phone)))) return true;
+        }
+    }
+
+    /**
+     * Returned array is shared with the store and must not be modified.
+     */
+    @Override
+    long[] getPhones(String name) {
+        return map.get().get(name);
+    }
+
+    /**
+     * Iterates the map current at the moment of call, so iteration sees no mutation made while iterating.
+     */
+    @Override
+    void forEach(BiConsumer<String, long[]> action) {
+        map.get().forEach(action);
+    }
+
+    @Override
+    int size() {
+        return map.get().size();
+    }
+
+    @Override
+    boolean isConcurrent() {
+        return true;
+    }
+
+    @Override
+    PhoneBookSnapshot snapshot() {
+        return new PhoneBookSnapshot(map.get());
+    }
+
+    private static boolean contains(long[] phones, long phone) {
+        for (long existing : phones) {
+            if (existing == phone) return true;
+        }
+        return false;
+    }
+
+    private static long[] without(long[] phones, long phone) {
+        long[] newPhones = new long[phones.length - 1];
+        int count = 0;
+        for (long existing : phones) {
+            if (existing != phone) newPhones[count++] = existing;
+        }
+        return newPhones;
+    }
+
+    private static long[] append(long[] phones, long phone) {
+        long[] newPhones = Arrays.copyOf(phones, phones.length + 1);
+        newPhones[phones.length] = phone;
+        return newPhones;
+    }
+}
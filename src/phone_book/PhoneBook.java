@@ -1,45 +1,741 @@
 package phone_book;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Phone book that maps contact names to their phone numbers.
+ * Phones are normalized to E.164 form and packed by {@link PhoneNumber}, so "8 (912) 333-44-55", "89123334455"
+ * and "+79123334455" are the same phone. National numbers get country code of the phone book,
+ * {@link PhoneNumber#DEFAULT_COUNTRY_CODE} unless another one is given to constructor.
+ * Methods adding phones throw {@link IllegalArgumentException} if phone is not a valid phone number.
+ * Contacts are kept in a {@link ContactStore}: by default each contact keeps its phones in a compact
+ * {@link PhoneSet} on heap, and {@link OffHeapContactStore} can be passed to {@link #PhoneBook(ContactStore)}
+ * to keep contacts outside of Java heap. Search indexes of names and phones are kept on heap with any store.
+ * Phone book created by {@link #PhoneBook()} is not thread-safe. Phone book created by {@link #PhoneBook(boolean)}
+ * with concurrent flag can be shared between threads without external locking: contacts and phones are added
+ * with atomic add-if-absent semantics, writes of one contact are serialized by one of {@link #LOCK_STRIPES} locks
+ * chosen by its name, so indexes and listeners see changes of the contact in order, and reads do not lock at all.
+ * Phone book that is not concurrent takes no locks.
+ * <p>
+ * Removed contacts are tombstoned in search indexes: removal takes time proportional to name length only,
+ * and space of removed contacts is reclaimed by {@link #compact()}. Compaction runs by itself once there are
+ * enough tombstones, in background for concurrent phone book, and never blocks lookups.
+ * <p>
+ * Counters and latency histograms of operations are collected by {@link PhoneBookMetrics} once enabled by
+ * {@link #setMetricsEnabled(boolean)}.
+ */
 public class PhoneBook {
-    private final Map<String, List<String>> contacts = new HashMap<>();
 
-    public void addPhoneToContact(String name, String phone) {
-        if (contacts.containsKey(name)) {
-            if (!contacts.get(name).contains(phone)) contacts.get(name).add(phone);
+    public static final int DEFAULT_FUZZY_DISTANCE = 2;
+    public static final int LOCK_STRIPES = 64;
+    public static final int MIN_COMPACTION_TOMBSTONES = 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(PhoneBook.class.getName());
+
+    private final boolean concurrent;
+    private final String countryCode;
+    //locks of contact writes, null when phone book is not concurrent
+    private final Lock[] contactLocks;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ContactStore store;
+    private final NameIndex nameIndex;
+    private final CollationIndex collationIndex;
+    private final PhoneIndex phoneIndex;
+    private final List<PhoneBookListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile QueryCache queryCache;
+    private volatile PhoneBookMetrics metrics;
+
+    /**
+     * Creates phone book for single-threaded use.
+     */
+    public PhoneBook() {
+        this(false);
+    }
+
+    /**
+     * Creates phone book.
+     *
+     * @param concurrent true to create phone book that is safe for concurrent reads and writes (boolean)
+     */
+    public PhoneBook(boolean concurrent) {
+        this(new HeapContactStore(concurrent));
+    }
+
+    /**
+     * Creates phone book with given country code of national numbers.
+     *
+     * @param concurrent  true to create phone book that is safe for concurrent reads and writes (boolean)
+     * @param countryCode country code given to national numbers, 1 to 3 digits (String)
+     * @throws IllegalArgumentException if country code is not 1 to 3 digits
+     */
+    public PhoneBook(boolean concurrent, String countryCode) throws IllegalArgumentException {
+        this(new HeapContactStore(concurrent), countryCode);
+    }
+
+    /**
+     * Creates phone book on top of given contact store. Phone book is safe for concurrent use if store is.
+     * Search indexes are kept on heap whatever the store is, so they still take heap space per contact.
+     *
+     * @param store empty contact store ({@link ContactStore} object)
+     */
+    public PhoneBook(ContactStore store) {
+        this(store, PhoneNumber.DEFAULT_COUNTRY_CODE);
+    }
+
+    /**
+     * Creates phone book on top of given contact store with given country code of national numbers.
+     * Phone book is safe for concurrent use if store is.
+     *
+     * @param store       empty contact store ({@link ContactStore} object)
+     * @param countryCode country code given to national numbers, 1 to 3 digits (String)
+     * @throws IllegalArgumentException if country code is not 1 to 3 digits
+     */
+    public PhoneBook(ContactStore store, String countryCode) throws IllegalArgumentException {
+        if (!countryCode.matches("[1-9][0-9]{0,2}")) {
+            throw new IllegalArgumentException("Country code must be 1 to 3 digits!");
+        }
+        this.countryCode = countryCode;
+        this.concurrent = store.isConcurrent();
+        this.store = store;
+        this.nameIndex = new NameIndex(concurrent);
+        this.collationIndex = new CollationIndex(concurrent);
+        this.phoneIndex = new PhoneIndex(concurrent);
+        this.contactLocks = concurrent ? new Lock[LOCK_STRIPES] : null;
+        for (int i = 0; concurrent && i < LOCK_STRIPES; i++) {
+            contactLocks[i] = new ReentrantLock();
         }
     }
 
+    /**
+     * Adds phone to existing contact. Nothing is done if there is no such contact, whatever the phone is.
+     *
+     * @param name  contact name (String)
+     * @param phone phone number (String)
+     * @throws IllegalArgumentException if contact exists and phone is not a valid phone number
+     */
+    public void addPhoneToContact(String name, String phone) throws IllegalArgumentException {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        long encodedPhone = PhoneNumber.tryEncode(phone, countryCode);
+        Lock lock = lock(name);
+        try {
+            //invalid phone is reported only for existing contact, which can't be removed while its lock is held
+            if (encodedPhone == 0 && store.getPhones(name) != null) {
+                encodedPhone = PhoneNumber.encode(phone, countryCode);
+            }
+            if (encodedPhone != 0) addPhoneToContact(name, encodedPhone);
+        } finally {
+            unlock(lock);
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.ADD_PHONE, start);
+    }
+
     public void addContact(String name) {
-        if (!contacts.containsKey(name)) contacts.put(name, new ArrayList<>());
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Lock lock = lock(name);
+        try {
+            if (store.addContact(name)) contactAdded(name);
+        } finally {
+            unlock(lock);
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.ADD_CONTACT, start);
     }
 
     public void addContact(String name, String phone) {
-        addContact(name);
-        addPhoneToContact(name, phone);
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        long encodedPhone = PhoneNumber.encode(phone, countryCode);
+        Lock lock = lock(name);
+        try {
+            int result = store.addContactWithPhone(name, encodedPhone);
+            if ((result & ContactStore.CONTACT_ADDED) != 0) contactAdded(name);
+            if ((result & ContactStore.PHONE_ADDED) != 0) phoneAdded(name, encodedPhone);
+        } finally {
+            unlock(lock);
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.ADD_CONTACT, start);
+    }
+
+    /**
+     * Removes contact with all its phones.
+     *
+     * @param name contact name (String)
+     * @return true if contact was removed, false if there is no such contact
+     */
+    public boolean removeContact(String name) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        long[] phones;
+        Lock lock = lock(name);
+        try {
+            phones = removeContactLocked(name);
+        } finally {
+            unlock(lock);
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.REMOVE_CONTACT, start);
+        if (phones == null) return false;
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Removes phone from contact. Phone is normalized first, so it may be given in any format.
+     *
+     * @param name  contact name (String)
+     * @param phone phone number (String)
+     * @return true if phone was removed, false if contact does not have this phone or does not exist
+     */
+    public boolean removePhone(String name, String phone) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean removed = removePhone(name, PhoneNumber.tryEncode(phone, countryCode));
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.REMOVE_PHONE, start);
+        return removed;
+    }
+
+    /**
+     * Merges source contact into target contact, when both turn out to be the same person: phones of source are
+     * added to target, which is created if absent, and source is removed. Merge is not atomic: for a moment
+     * concurrent readers may find phones of source in neither contact.
+     *
+     * @param targetName name of contact to keep (String)
+     * @param sourceName name of contact to merge and remove (String)
+     * @return true if contacts were merged, false if there is no source contact
+     * @throws IllegalArgumentException if target and source are the same contact
+     */
+    public boolean mergeContacts(String targetName, String sourceName) throws IllegalArgumentException {
+        if (targetName.equals(sourceName)) throw new IllegalArgumentException("Contact can't be merged into itself!");
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        long[] phones;
+        Lock sourceLock = lock(sourceName);
+        try {
+            phones = removeContactLocked(sourceName);
+        } finally {
+            unlock(sourceLock);
+        }
+        if (phones != null) {
+            Lock targetLock = lock(targetName);
+            try {
+                if (store.addContact(targetName)) contactAdded(targetName);
+                for (long encodedPhone : phones) {
+                    addPhoneToContact(targetName, encodedPhone);
+                }
+            } finally {
+                unlock(targetLock);
+            }
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.MERGE_CONTACTS, start);
+        if (phones == null) return false;
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Reclaims space left by removed contacts: purges them from search indexes and compacts contact store.
+     * Lookups are not blocked while compacting, and changes are blocked only for short batches.
+     */
+    public void compact() {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        nameIndex.compact();
+        phoneIndex.compact();
+        store.compact();
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.COMPACT, start);
+    }
+
+    /**
+     * Merges batch of contacts into phone book. Each phone of the batch costs one duplicate check, which takes
+     * constant time for default contact store. All phones are validated before the first contact is added,
+     * so invalid batch leaves phone book unchanged.
+     *
+     * @param batch map of contact names to their phones (Map)
+     * @throws IllegalArgumentException if some phone of the batch is not a valid phone number
+     */
+    public void addContacts(Map<String, ? extends Collection<String>> batch) throws IllegalArgumentException {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Map<String, long[]> encodedBatch = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> entry : batch.entrySet()) {
+            long[] encodedPhones = new long[entry.getValue().size()];
+            int i = 0;
+            for (String phone : entry.getValue()) {
+                encodedPhones[i++] = PhoneNumber.encode(phone, countryCode);
+            }
+            encodedBatch.put(entry.getKey(), encodedPhones);
+        }
+        for (Map.Entry<String, long[]> entry : encodedBatch.entrySet()) {
+            String name = entry.getKey();
+            Lock lock = lock(name);
+            try {
+                if (store.addContact(name)) contactAdded(name);
+                for (long encodedPhone : entry.getValue()) {
+                    addPhoneToContact(name, encodedPhone);
+                }
+            } finally {
+                unlock(lock);
+            }
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.ADD_BATCH, start);
+    }
+
+    /**
+     * Bulk-loads contacts into phone book, which must not be used by other threads while loading. Contacts go
+     * straight to the store without contact locks, and name index is built once for all loaded names, so loading
+     * costs much less per contact than {@link #addContacts(Map)}. Listeners are notified of every loaded contact
+     * and phone, and query cache is cleared once.
+     *
+     * @param contacts contacts to load ({@link Iterator} of {@link Contact} objects)
+     * @throws IllegalArgumentException if some phone is not a valid phone number, contacts before it stay loaded
+     */
+    void load(Iterator<Contact> contacts) throws IllegalArgumentException {
+        List<String> names = new ArrayList<>();
+        try {
+            while (contacts.hasNext()) {
+                Contact contact = contacts.next();
+                String name = contact.getName();
+                if (store.addContact(name)) {
+                    names.add(name);
+                    collationIndex.add(name);
+                    for (PhoneBookListener listener : listeners) {
+                        listener.contactAdded(name);
+                    }
+                }
+                for (String phone : contact.getPhones()) {
+                    long encodedPhone = PhoneNumber.encode(phone, countryCode);
+                    if (store.addPhone(name, encodedPhone)) phoneAdded(name, encodedPhone);
+                }
+            }
+        } finally {
+            nameIndex.addAll(names);
+            QueryCache cache = queryCache;
+            if (cache != null) queryCache = new QueryCache(cache.getCapacity());
+        }
+    }
+
+    /**
+     * Returns immutable point-in-time view of phone book contacts. With {@link PersistentContactStore} snapshot
+     * takes O(1) time, is consistent, and never blocks writers. With other stores contacts are copied.
+     *
+     * @return snapshot of contacts ({@link PhoneBookSnapshot} object)
+     */
+    public PhoneBookSnapshot snapshot() {
+        return store.snapshot();
+    }
+
+    /**
+     * Registers listener of phone book mutations.
+     *
+     * @param listener listener ({@link PhoneBookListener} object)
+     */
+    public void addListener(PhoneBookListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters listener of phone book mutations.
+     *
+     * @param listener listener ({@link PhoneBookListener} object)
+     */
+    public void removeListener(PhoneBookListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets size of cache of partial name search results used by {@link #getContactByName(String)}.
+     * Previously cached results are dropped.
+     *
+     * @param capacity maximum number of cached queries, 0 disables cache (int)
+     * @throws IllegalArgumentException if capacity is negative
+     * @see QueryCache
+     */
+    public void setQueryCacheCapacity(int capacity) throws IllegalArgumentException {
+        if (capacity < 0) throw new IllegalArgumentException("Cache capacity can't be negative.");
+        queryCache = capacity == 0 ? null : new QueryCache(capacity);
+    }
+
+    /**
+     * @return cache of partial name search results with its hit and miss counters,
+     * or null if cache is disabled ({@link QueryCache} object)
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Enables or disables collecting of operation metrics. Enabling metrics that are already enabled keeps
+     * collected statistics, disabling drops them.
+     *
+     * @param enabled true to collect metrics (boolean)
+     * @see PhoneBookMetrics
+     */
+    public synchronized void setMetricsEnabled(boolean enabled) {
+        if (!enabled) metrics = null;
+        else if (metrics == null) metrics = new PhoneBookMetrics();
+    }
+
+    /**
+     * @return operation metrics, or null if metrics are disabled ({@link PhoneBookMetrics} object)
+     */
+    public PhoneBookMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return country code given to national numbers (String)
+     */
+    public String getCountryCode() {
+        return countryCode;
     }
 
     public String getContactByName(String name) {
-        if (!contacts.containsKey(name)) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        long[] phones = store.getPhones(name);
+        if (phones == null) {
             Set<String> partialMatchedContacts = getPartialContacts(name);
+            if (metrics != null) {
+                int resultSize = partialMatchedContacts == null ? 0 : partialMatchedContacts.size();
+                metrics.record(PhoneBookMetrics.Operation.GET_PARTIAL, start, resultSize);
+            }
             if (partialMatchedContacts == null) return null;
             else return partialMatchedContacts.toString();
         }
-        return contacts.get(name).toString();
+        String foundPhones = PhoneNumber.decodeAll(phones).toString();
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.GET_EXACT, start, phones.length);
+        return foundPhones;
+    }
+
+    /**
+     * Finds contact by its exact name.
+     *
+     * @param name contact name (String)
+     * @return found contact ({@link Contact} object), or null if there is no such contact
+     */
+    public Contact findContact(String name) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Contact contact = getContact(name);
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.FIND_CONTACT, start, contact == null ? 0 : 1);
+        return contact;
+    }
+
+    /**
+     * Lazily finds all contacts which names contain given part. Contacts are looked up one by one
+     * while the stream is consumed, so taking first few contacts of a broad query costs only these contacts.
+     *
+     * @param partialName part of contact name (String)
+     * @return stream of contacts sorted by name (Stream of {@link Contact} objects)
+     */
+    public Stream<Contact> findContacts(String partialName) {
+        return findContacts(partialName, null);
+    }
+
+    /**
+     * Finds one page of contacts which names contain given part.
+     *
+     * @param partialName part of contact name (String)
+     * @param cursor      cursor returned with previous page, or null for the first page (String)
+     * @param limit       maximum number of contacts on page (int)
+     * @return page of contacts sorted by name ({@link ContactPage} object)
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public ContactPage findContacts(String partialName, String cursor, int limit) throws IllegalArgumentException {
+        if (limit <= 0) throw new IllegalArgumentException("Page limit must be positive.");
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Contact> pageContacts = findContacts(partialName, cursor)
+                .limit(limit + 1L)
+                .collect(Collectors.toCollection(ArrayList::new));
+        String nextCursor = null;
+        if (pageContacts.size() > limit) {
+            pageContacts.remove(limit);
+            nextCursor = pageContacts.get(limit - 1).getName();
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.FIND_PAGE, start, pageContacts.size());
+        return new ContactPage(pageContacts, nextCursor);
+    }
+
+    /**
+     * Finds contacts which names are closest to given name, allowing up to {@link #DEFAULT_FUZZY_DISTANCE} typos.
+     *
+     * @param name  contact name, possibly mistyped (String)
+     * @param limit maximum number of found contacts (int)
+     * @return found contacts, closest first (List of {@link Contact} objects)
+     * @see #findSimilarContacts(String, int, int)
+     */
+    public List<Contact> findSimilarContacts(String name, int limit) {
+        return findSimilarContacts(name, limit, DEFAULT_FUZZY_DISTANCE);
+    }
+
+    /**
+     * Finds contacts which names are closest to given name by edit distance (number of inserted, deleted or
+     * replaced characters). Search walks the name trie and skips every branch that can't be close enough,
+     * so it does not compare given name with every contact.
+     *
+     * @param name        contact name, possibly mistyped (String)
+     * @param limit       maximum number of found contacts (int)
+     * @param maxDistance maximum edit distance between given name and found names (int)
+     * @return found contacts sorted by distance, then by name (List of {@link Contact} objects)
+     * @throws IllegalArgumentException if limit is not positive or distance is negative
+     */
+    public List<Contact> findSimilarContacts(String name, int limit, int maxDistance) throws IllegalArgumentException {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive.");
+        if (maxDistance < 0) throw new IllegalArgumentException("Distance can't be negative.");
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<Contact> foundContacts = new ArrayList<>();
+        for (String foundName : nameIndex.findSimilar(name, limit, maxDistance)) {
+            Contact contact = getContact(foundName);
+            if (contact != null) foundContacts.add(contact);
+        }
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.FIND_SIMILAR, start, foundContacts.size());
+        return foundContacts;
+    }
+
+    /**
+     * Finds all contacts owning given phone number. Number is normalized first, so it may be given in any format.
+     * Lookup walks digit trie of phone numbers by digits of packed number, which takes at most
+     * {@link PhoneNumber#MAX_DIGITS} steps.
+     *
+     * @param phone phone number (String)
+     * @return set of contact names in order they got this number (in any order for concurrent phone book),
+     * or null if number is unknown
+     */
+    public Set<String> getContactsByPhone(String phone) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        long encodedPhone = PhoneNumber.tryEncode(phone, countryCode);
+        Set<String> owners = encodedPhone == 0 ? null : phoneIndex.getOwners(encodedPhone);
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.FIND_BY_PHONE, start, owners == null ? 0 : owners.size());
+        if (owners == null) return null;
+        else return Collections.unmodifiableSet(owners);
+    }
+
+    /**
+     * Finds all contacts owning phone numbers that start with given prefix. Prefix is normalized the same way as
+     * numbers, so "+7911" is found by "8911" and "911" as well, along with short numbers starting with given digits.
+     *
+     * @param phonePrefix beginning of phone number (String)
+     * @return sorted set of contact names, or null if nothing found
+     */
+    public Set<String> getContactsByPhonePrefix(String phonePrefix) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Set<String> foundContacts = phoneIndex.findOwnersByPrefix(PhoneNumber.normalizePrefixes(phonePrefix, countryCode));
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.FIND_BY_PHONE_PREFIX, start, foundContacts.size());
+        if (foundContacts.isEmpty()) return null;
+        else return foundContacts;
+    }
+
+    /**
+     * Finds all contacts which names start with given prefix.
+     *
+     * @param prefix beginning of contact name (String)
+     * @return sorted set of contact names, or null if nothing found
+     */
+    public Set<String> getContactsByPrefix(String prefix) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Set<String> foundContacts = nameIndex.findByPrefix(prefix);
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.FIND_BY_PREFIX, start, foundContacts.size());
+        if (foundContacts.isEmpty()) return null;
+        else return foundContacts;
+    }
+
+    /**
+     * Lazily lists all contacts in alphabetical order, Latin names first, regardless of case of their first letters.
+     *
+     * @return stream of contacts in alphabetical order (Stream of {@link Contact} objects)
+     * @see #listContacts(String, String)
+     */
+    public Stream<Contact> listContacts() {
+        return listContacts(null, null);
+    }
+
+    /**
+     * Lazily lists contacts in alphabetical order from one name beginning to another, like a tab of paper phone book.
+     * Bounds are inclusive and ignore case and accents: contacts from "Ba" to "Bl" include "barbara" and "Blake",
+     * but not "Bob". Names are kept ordered by their collation keys, so listing neither sorts nor compares
+     * names with collator.
+     *
+     * @param from first name or its beginning, or null to start from the first contact (String)
+     * @param to   last name or its beginning, or null to go up to the last contact (String)
+     * @return stream of contacts in alphabetical order (Stream of {@link Contact} objects)
+     */
+    public Stream<Contact> listContacts(String from, String to) {
+        return collationIndex.streamRange(from, to)
+                .map(this::getContact)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Finds all contacts which names contain given part regardless of case. Name index is built over lower case
+     * forms of names, so only the query is lowered, and found names are compared with it regardless of case.
+     *
+     * @param partialName part of contact name in any case (String)
+     * @return sorted set of contact names, or null if nothing found
+     */
+    public Set<String> getContactsContainingIgnoreCase(String partialName) {
+        PhoneBookMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Set<String> foundContacts = nameIndex.findContainingIgnoreCase(partialName);
+        if (metrics != null) metrics.record(PhoneBookMetrics.Operation.FIND_IGNORING_CASE, start, foundContacts.size());
+        if (foundContacts.isEmpty()) return null;
+        else return foundContacts;
     }
 
     private Set<String> getPartialContacts(String partialName) {
-        Set<String> foundContacts = new HashSet<>();
-        for (String name : contacts.keySet()) {
-            if (name.contains(partialName)) foundContacts.add(name);
+        QueryCache cache = queryCache;
+        Set<String> foundContacts = cache == null ? null : cache.get(partialName);
+        if (foundContacts == null) {
+            long stamp = cache == null ? 0 : cache.stamp();
+            foundContacts = nameIndex.findContaining(partialName);
+            if (cache != null) {
+                foundContacts = Collections.unmodifiableSet(new LinkedHashSet<>(foundContacts));
+                cache.put(partialName, foundContacts, stamp);
+            }
         }
         if (foundContacts.isEmpty()) return null;
         else return foundContacts;
     }
 
+    private Stream<Contact> findContacts(String partialName, String after) {
+        return nameIndex.streamContaining(partialName, after)
+                .map(this::getContact)
+                .filter(Objects::nonNull);
+    }
+
+    private Contact getContact(String name) {
+        long[] phones = store.getPhones(name);
+        if (phones == null) return null;
+        else return new Contact(name, PhoneNumber.decodeAll(phones));
+    }
+
+    /**
+     * Removes phone from contact.
+     *
+     * @return true if phone was removed, false if contact does not have this phone or phone is 0 (invalid)
+     */
+    private boolean removePhone(String name, long encodedPhone) {
+        if (encodedPhone == 0) return false;
+        Lock lock = lock(name);
+        try {
+            if (!store.removePhone(name, encodedPhone)) return false;
+            phoneIndex.remove(encodedPhone, name);
+            if (listeners.isEmpty()) return true;
+            String normalizedPhone = PhoneNumber.decode(encodedPhone);
+            for (PhoneBookListener listener : listeners) {
+                listener.phoneRemoved(name, normalizedPhone);
+            }
+        } finally {
+            unlock(lock);
+        }
+        return true;
+    }
+
+    /**
+     * Takes lock serializing writes of the contact. Phone book that is not concurrent takes no lock.
+     *
+     * @return taken lock, or null if phone book is not concurrent
+     */
+    private Lock lock(String name) {
+        if (contactLocks == null) return null;
+        int hash = name.hashCode() * 0x9E3779B9;
+        Lock lock = contactLocks[(hash ^ (hash >>> 16)) & (contactLocks.length - 1)];
+        lock.lock();
+        return lock;
+    }
+
+    private static void unlock(Lock lock) {
+        if (lock != null) lock.unlock();
+    }
+
+    /**
+     * Removes contact from store and indexes. Must be called under lock of the contact.
+     *
+     * @return packed phones of removed contact, or null if there is no such contact
+     */
+    private long[] removeContactLocked(String name) {
+        long[] phones = store.removeContact(name);
+        if (phones == null) return null;
+        nameIndex.remove(name);
+        collationIndex.remove(name);
+        for (long encodedPhone : phones) {
+            phoneIndex.remove(encodedPhone, name);
+        }
+        QueryCache cache = queryCache;
+        if (cache != null) cache.invalidate(name);
+        for (PhoneBookListener listener : listeners) {
+            listener.contactRemoved(name);
+        }
+        return phones;
+    }
+
+    /**
+     * Starts compaction once tombstones make up a noticeable part of the phone book, so compaction cost
+     * is spread over many removals. Concurrent phone book is compacted in background.
+     */
+    private void compactIfNeeded() {
+        int tombstoneCount = nameIndex.getTombstoneCount() + phoneIndex.getTombstoneCount();
+        if (tombstoneCount < Math.max(MIN_COMPACTION_TOMBSTONES, store.size() / 4)) return;
+        if (!compacting.compareAndSet(false, true)) return;
+        if (concurrent) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    compact();
+                } finally {
+                    compacting.set(false);
+                }
+            }).whenComplete((result, failure) -> {
+                if (failure != null) LOGGER.log(Level.WARNING, "Background compaction of phone book failed", failure);
+            });
+        } else {
+            try {
+                compact();
+            } finally {
+                compacting.set(false);
+            }
+        }
+    }
+
+    private void addPhoneToContact(String name, long encodedPhone) {
+        if (store.addPhone(name, encodedPhone)) phoneAdded(name, encodedPhone);
+    }
+
+    private void contactAdded(String name) {
+        nameIndex.add(name);
+        collationIndex.add(name);
+        QueryCache cache = queryCache;
+        if (cache != null) cache.invalidate(name);
+        for (PhoneBookListener listener : listeners) {
+            listener.contactAdded(name);
+        }
+    }
+
+    private void phoneAdded(String name, long encodedPhone) {
+        phoneIndex.add(encodedPhone, name);
+        if (listeners.isEmpty()) return;
+        String phone = PhoneNumber.decode(encodedPhone);
+        for (PhoneBookListener listener : listeners) {
+            listener.phoneAdded(name, phone);
+        }
+    }
+
     @Override
     public String toString() {
-        return "PhoneBook=" + contacts;
+        StringJoiner joiner = new StringJoiner(", ", "PhoneBook={", "}");
+        store.forEach((name, phones) -> joiner.add(name + '=' + PhoneNumber.decodeAll(phones)));
+        return joiner.toString();
     }
 }
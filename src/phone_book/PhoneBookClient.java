@@ -0,0 +1,188 @@
+package phone_book;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Blocking client of {@link PhoneBookServer}. Methods like {@link #getContact(String)} send one request and wait
+ * for its response. For load testing many requests can be pipelined: {@link #send(String...)} queues request without
+ * waiting, and {@link #receive()} returns responses in order of requests.
+ * Raw requests are "ADD name [phone]", "REMOVE name [phone]", "GET name", "FIND partialName [limit]" and
+ * "PHONE phone".
+ * Client is not thread-safe, every thread should use its own client.
+ *
+ * @see PhoneBookServer
+ */
+public class PhoneBookClient implements Closeable {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Socket socket;
+    private final InputStream input;
+    private final OutputStream output;
+    private byte[] line = new byte[128];
+    private int pendingResponses;
+
+    private PhoneBookClient(Socket socket) throws IOException {
+        this.socket = socket;
+        this.input = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+        this.output = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+    }
+
+    /**
+     * Connects to server on loopback address.
+     *
+     * @param port server port (int)
+     * @return connected client ({@link PhoneBookClient} object)
+     * @throws IOException if connection fails
+     */
+    public static PhoneBookClient connect(int port) throws IOException {
+        return connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * @param address server address ({@link InetSocketAddress} object)
+     * @return connected client ({@link PhoneBookClient} object)
+     * @throws IOException if connection fails
+     */
+    public static PhoneBookClient connect(InetSocketAddress address) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            return new PhoneBookClient(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if server rejected the request
+     */
+    public void addContact(String name) throws IOException, IllegalArgumentException {
+        request(PhoneBookProtocol.ADD, name);
+    }
+
+    /**
+     * @throws IllegalArgumentException if phone is not a valid phone number
+     */
+    public void addContact(String name, String phone) throws IOException, IllegalArgumentException {
+        request(PhoneBookProtocol.ADD, name, phone);
+    }
+
+    /**
+     * @return true if contact was removed, false if there is no such contact
+     */
+    public boolean removeContact(String name) throws IOException {
+        return request(PhoneBookProtocol.REMOVE, name) != null;
+    }
+
+    /**
+     * @return true if phone was removed, false if contact does not have this phone or does not exist
+     */
+    public boolean removePhone(String name, String phone) throws IOException {
+        return request(PhoneBookProtocol.REMOVE, name, phone) != null;
+    }
+
+    /**
+     * @param name contact name (String)
+     * @return normalized phones of contact, or null if there is no such contact (List of Strings)
+     */
+    public List<String> getContact(String name) throws IOException {
+        return request(PhoneBookProtocol.GET, name);
+    }
+
+    /**
+     * @param partialName part of contact name (String)
+     * @param limit       maximum number of names to return (int)
+     * @return names of contacts which contain given part, in alphabetical order (List of Strings)
+     */
+    public List<String> findContacts(String partialName, int limit) throws IOException, IllegalArgumentException {
+        return request(PhoneBookProtocol.FIND, partialName, Integer.toString(limit));
+    }
+
+    /**
+     * @param phone phone number in any supported format (String)
+     * @return names of phone owners, or null if phone is unknown (List of Strings)
+     */
+    public List<String> getContactsByPhone(String phone) throws IOException {
+        return request(PhoneBookProtocol.PHONE, phone);
+    }
+
+    /**
+     * Queues raw request without waiting for response. Requests are written when {@link #receive()} is called
+     * or when buffer is full. Server stops reading requests when more than
+     * {@link PhoneBookServer#MAX_PENDING_OUTPUT} bytes of responses are not read, so long pipelines should be
+     * received in batches.
+     *
+     * @param fields command followed by its arguments (Strings)
+     * @throws IllegalArgumentException if some field contains tab or line break
+     */
+    public void send(String... fields) throws IOException, IllegalArgumentException {
+        if (fields.length == 0) throw new IllegalArgumentException("Request must have a command!");
+        String request = PhoneBookProtocol.line(fields[0], Arrays.asList(fields).subList(1, fields.length));
+        output.write(PhoneBookProtocol.encode(request));
+        pendingResponses++;
+    }
+
+    /**
+     * Waits for response of the oldest request sent by {@link #send(String...)}.
+     *
+     * @return response fields after status, or null if server found nothing (List of Strings)
+     * @throws IllegalStateException    if there are no requests waiting for response
+     * @throws IllegalArgumentException if server rejected the request
+     */
+    public List<String> receive() throws IOException, IllegalStateException, IllegalArgumentException {
+        if (pendingResponses == 0) throw new IllegalStateException("No requests waiting for response!");
+        output.flush();
+        String[] fields = PhoneBookProtocol.fields(readLine());
+        pendingResponses--;
+
+        switch (fields[0]) {
+            case PhoneBookProtocol.OK:
+                return new ArrayList<>(Arrays.asList(fields).subList(1, fields.length));
+            case PhoneBookProtocol.NONE:
+                return null;
+            case PhoneBookProtocol.ERROR:
+                throw new IllegalArgumentException(fields.length > 1 ? fields[1] : "Request failed");
+            default:
+                throw new IOException("Unexpected response: " + fields[0]);
+        }
+    }
+
+    /**
+     * @return number of sent requests waiting for response (int)
+     */
+    public int getPendingResponses() {
+        return pendingResponses;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private List<String> request(String... fields) throws IOException, IllegalArgumentException {
+        if (pendingResponses != 0) throw new IllegalStateException("Receive pipelined responses first!");
+        send(fields);
+        return receive();
+    }
+
+    private String readLine() throws IOException {
+        int length = 0;
+        int b;
+        while ((b = input.read()) != PhoneBookProtocol.END) {
+            if (b < 0) throw new EOFException("Connection closed by server");
+            if (length == line.length) line = Arrays.copyOf(line, line.length * 2);
+            line[length++] = (byte) b;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,93 @@
+package phone_book;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Coalesced change of one contact, published by {@link PhoneBookEventPublisher}. All mutations of the contact
+ * collected into one batch are merged into one event, which is applied to a mirror in this order:
+ * remove the contact if it was removed, add it if it was (re)created, remove removed phones, and add contact with
+ * each added phone, like {@link PhoneBook#addContact(String, String)} does. Applying the event gives the same
+ * contact as applying its mutations one by one.
+ *
+ * @see PhoneBookEventPublisher
+ */
+public final class PhoneBookEvent {
+
+    private final String name;
+    private final boolean contactRemoved;
+    private final boolean contactAdded;
+    private final List<String> removedPhones;
+    private final List<String> addedPhones;
+
+    /**
+     * Creates event.
+     *
+     * @param name           contact name (String)
+     * @param contactRemoved whether contact was removed (boolean)
+     * @param contactAdded   whether contact was created, after removal if it was removed too (boolean)
+     * @param removedPhones  normalized phones removed from contact (List of Strings)
+     * @param addedPhones    normalized phones added to contact (List of Strings)
+     */
+    public PhoneBookEvent(String name, boolean contactRemoved, boolean contactAdded, List<String> removedPhones,
+                          List<String> addedPhones) {
+        this.name = name;
+        this.contactRemoved = contactRemoved;
+        this.contactAdded = contactAdded;
+        this.removedPhones = Collections.unmodifiableList(removedPhones);
+        this.addedPhones = Collections.unmodifiableList(addedPhones);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isContactRemoved() {
+        return contactRemoved;
+    }
+
+    public boolean isContactAdded() {
+        return contactAdded;
+    }
+
+    /**
+     * @return unmodifiable list of removed phones (List of Strings)
+     */
+    public List<String> getRemovedPhones() {
+        return removedPhones;
+    }
+
+    /**
+     * @return unmodifiable list of added phones in order they were added (List of Strings)
+     */
+    public List<String> getAddedPhones() {
+        return addedPhones;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PhoneBookEvent event = (PhoneBookEvent) o;
+        return contactRemoved == event.contactRemoved && contactAdded == event.contactAdded
+                && Objects.equals(name, event.name) && Objects.equals(removedPhones, event.removedPhones)
+                && Objects.equals(addedPhones, event.addedPhones);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, contactRemoved, contactAdded, removedPhones, addedPhones);
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneBookEvent: (" +
+                "name=" + name +
+                ", contactRemoved=" + contactRemoved +
+                ", contactAdded=" + contactAdded +
+                ", removedPhones=" + removedPhones +
+                ", addedPhones=" + addedPhones +
+                ')';
+    }
+}
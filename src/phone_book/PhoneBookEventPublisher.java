@@ -0,0 +1,254 @@
+package phone_book;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Publishes {@link PhoneBook} mutations as a stream of event batches, so mirrors of the phone book can be kept up
+ * to date incrementally. Publisher is registered as listener of the phone book:
+ * <pre>
+ *     PhoneBookEventPublisher publisher = new PhoneBookEventPublisher();
+ *     phoneBook.addListener(publisher);
+ *     publisher.subscribe(subscriber);
+ * </pre>
+ * Like other listeners, publisher gets only effective mutations, so adding existing contact or phone emits nothing.
+ * Mutations are collected and coalesced: all changes of one contact become one {@link PhoneBookEvent}, so phone
+ * added and removed again within one batch is not published at all.
+ * Changes are published when {@link #getMaxBatchSize()} contacts are changed, or when the oldest change is older
+ * than max delay, in batches of at most max batch size events. Batches are delivered to subscribers by
+ * {@link SubmissionPublisher} with its backpressure: if some subscriber does not request more batches, publishing
+ * waits, and meanwhile new changes keep being coalesced, so repeated changes of one contact reach slow subscriber
+ * as one event. Phone book mutations never wait for subscribers, so changes waiting to be published are bounded
+ * by {@link #getMaxPendingContacts()} contacts: once that many contacts have pending changes, changes of other
+ * contacts are dropped until the pending ones are published, and counted by {@link #getDroppedChangeCount()}.
+ * Mirror must be rebuilt from the phone book if that count grows.
+ *
+ * @see PhoneBookEvent
+ * @see PhoneBookListener
+ */
+public class PhoneBookEventPublisher implements PhoneBookListener, Flow.Publisher<List<PhoneBookEvent>>, Closeable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+    public static final int DEFAULT_MAX_PENDING_CONTACTS = 65536;
+
+    private static final Logger LOGGER = Logger.getLogger(PhoneBookEventPublisher.class.getName());
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final int maxPendingContacts;
+    private final SubmissionPublisher<List<PhoneBookEvent>> publisher = new SubmissionPublisher<>();
+    private final Object lock = new Object();
+    private final Object publishLock = new Object();
+    private final Thread flusher;
+    private Map<String, PendingChange> pending = new LinkedHashMap<>();
+    private long oldestChangeNanos;
+    private long droppedChangeCount;
+    private boolean closed;
+
+    public PhoneBookEventPublisher() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates publisher.
+     *
+     * @param maxBatchSize   maximum number of events in one batch (int)
+     * @param maxDelayMillis maximum time change may wait before its batch is published, in milliseconds (long)
+     * @throws IllegalArgumentException if batch size is not positive or delay is negative
+     */
+    public PhoneBookEventPublisher(int maxBatchSize, long maxDelayMillis) throws IllegalArgumentException {
+        this(maxBatchSize, maxDelayMillis, Math.max(maxBatchSize, DEFAULT_MAX_PENDING_CONTACTS));
+    }
+
+    /**
+     * Creates publisher.
+     *
+     * @param maxBatchSize       maximum number of events in one batch (int)
+     * @param maxDelayMillis     maximum time change may wait before its batch is published, in milliseconds (long)
+     * @param maxPendingContacts maximum number of contacts which changes wait to be published (int)
+     * @throws IllegalArgumentException if batch size is not positive, delay is negative or pending contacts limit
+     *                                  is less than batch size
+     */
+    public PhoneBookEventPublisher(int maxBatchSize, long maxDelayMillis, int maxPendingContacts)
+            throws IllegalArgumentException {
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        if (maxDelayMillis < 0) throw new IllegalArgumentException("Delay can't be negative.");
+        if (maxPendingContacts < maxBatchSize) {
+            throw new IllegalArgumentException("Pending contacts limit can't be less than batch size.");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.maxPendingContacts = maxPendingContacts;
+        this.flusher = new Thread(this::runFlusher, "phone-book-event-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int getMaxPendingContacts() {
+        return maxPendingContacts;
+    }
+
+    /**
+     * @return number of changes dropped because too many contacts had pending changes (long)
+     */
+    public long getDroppedChangeCount() {
+        synchronized (lock) {
+            return droppedChangeCount;
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<PhoneBookEvent>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void contactAdded(String name) {
+        synchronized (lock) {
+            PendingChange change = change(name);
+            if (change != null) change.contactAdded = true;
+        }
+    }
+
+    @Override
+    public void phoneAdded(String name, String phone) {
+        synchronized (lock) {
+            PendingChange change = change(name);
+            if (change != null) change.addedPhones.add(phone);
+        }
+    }
+
+    @Override
+    public void contactRemoved(String name) {
+        synchronized (lock) {
+            PendingChange change = change(name);
+            if (change == null) return;
+            //removal cancels everything collected for the contact before it
+            change.contactRemoved = true;
+            change.contactAdded = false;
+            change.removedPhones.clear();
+            change.addedPhones.clear();
+        }
+    }
+
+    @Override
+    public void phoneRemoved(String name, String phone) {
+        synchronized (lock) {
+            PendingChange change = change(name);
+            if (change == null) return;
+            if (!change.addedPhones.remove(phone)) change.removedPhones.add(phone);
+        }
+    }
+
+    /**
+     * Publishes all collected changes right away, without waiting for max delay.
+     */
+    public void flush() {
+        synchronized (publishLock) {
+            Map<String, PendingChange> batch;
+            synchronized (lock) {
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            List<PhoneBookEvent> events = new ArrayList<>(Math.min(batch.size(), maxBatchSize));
+            for (Map.Entry<String, PendingChange> entry : batch.entrySet()) {
+                PendingChange change = entry.getValue();
+                events.add(new PhoneBookEvent(entry.getKey(), change.contactRemoved, change.contactAdded,
+                        change.removedPhones, change.addedPhones));
+                if (events.size() == maxBatchSize) {
+                    publisher.submit(events);
+                    events = new ArrayList<>(maxBatchSize);
+                }
+            }
+            if (!events.isEmpty()) publisher.submit(events);
+        }
+    }
+
+    /**
+     * Publishes collected changes and completes subscribers. Publisher should be removed from phone book
+     * listeners before closing, later changes are ignored.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        publisher.close();
+    }
+
+    /**
+     * Must be called under lock.
+     *
+     * @return pending change of contact, or null if publisher is closed or change is dropped
+     */
+    private PendingChange change(String name) {
+        if (closed) return null;
+        if (pending.isEmpty()) {
+            oldestChangeNanos = System.nanoTime();
+            lock.notifyAll();
+        }
+        PendingChange change = pending.get(name);
+        if (change == null) {
+            if (pending.size() == maxPendingContacts) {
+                if (droppedChangeCount++ == 0) {
+                    LOGGER.warning("Too many contacts wait to be published, their changes are dropped");
+                }
+                return null;
+            }
+            change = new PendingChange();
+            pending.put(name, change);
+            if (pending.size() == maxBatchSize) lock.notifyAll();
+        }
+        return change;
+    }
+
+    private void runFlusher() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (!closed) {
+                        if (pending.isEmpty()) {
+                            lock.wait();
+                            continue;
+                        }
+                        long waitNanos = maxDelayNanos - (System.nanoTime() - oldestChangeNanos);
+                        if (pending.size() >= maxBatchSize || waitNanos <= 0) break;
+                        TimeUnit.NANOSECONDS.timedWait(lock, waitNanos);
+                    }
+                    if (closed) return;
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            //flusher is stopped, remaining changes are published on close
+        }
+    }
+
+    /**
+     * Changes of one contact collected since the last published batch.
+     */
+    private static class PendingChange {
+        private boolean contactRemoved;
+        private boolean contactAdded;
+        private final List<String> removedPhones = new ArrayList<>(0);
+        private final List<String> addedPhones = new ArrayList<>(1);
+    }
+}
@@ -0,0 +1,337 @@
+package phone_book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk loader that streams contacts from CSV or vCard files into {@link PhoneBook}.
+ * File is memory-mapped through {@link FileChannel} in chunks of about {@link #DEFAULT_CHUNK_SIZE} bytes, every chunk
+ * is cut at the first record boundary after its size, chunks are parsed in parallel into batches, and every batch
+ * is merged into phone book with one call of {@link PhoneBook#addContacts(Map)}. Only a window of chunks is held
+ * in memory at a time, so file size is not limited by heap size.
+ * <p>
+ * CSV format: one contact per line, name followed by its phones, separated by commas ("Vasya,89003337788").
+ * Name may be quoted with double quotes, quote inside quoted name is escaped by doubling it, and quoted name
+ * may span several lines. Header line "name,phone" and empty lines are skipped. Quote which is never closed
+ * fails the import, instead of turning the rest of the file into one name.
+ * <p>
+ * Phones are validated while parsing: record with a phone that is not a valid phone number is skipped as a whole
+ * and counted by {@link #getRejectedRecords()}, so one bad record does not abort the import.
+ * <p>
+ * vCard format: contact name is taken from FN property, phones from TEL properties.
+ *
+ * @see PhoneBook#addContacts(Map)
+ */
+public class PhoneBookImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    //largest size of one mapping
+    private static final long MAX_MAP_SIZE = Integer.MAX_VALUE;
+    private static final byte[] VCARD_RECORD_START = "\nBEGIN:VCARD".getBytes(StandardCharsets.US_ASCII);
+
+    private final PhoneBook phoneBook;
+    private final int chunkSize;
+    private final int window = Math.max(1, Runtime.getRuntime().availableProcessors() * 2);
+    private long rejectedRecords;
+
+    /**
+     * Creates importer with default chunk size.
+     *
+     * @param phoneBook phone book to import contacts into ({@link PhoneBook} object)
+     */
+    public PhoneBookImporter(PhoneBook phoneBook) {
+        this(phoneBook, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates importer.
+     *
+     * @param phoneBook phone book to import contacts into ({@link PhoneBook} object)
+     * @param chunkSize approximate size of file chunk parsed as one batch, in bytes (int)
+     * @throws IllegalArgumentException if chunk size is not positive
+     */
+    public PhoneBookImporter(PhoneBook phoneBook, int chunkSize) throws IllegalArgumentException {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.phoneBook = phoneBook;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports contacts from CSV file.
+     *
+     * @param file path to CSV file (Path)
+     * @return number of imported records (long)
+     * @throws IOException if file can't be read, or has a quote which is never closed
+     */
+    public long importCsv(Path file) throws IOException {
+        return importFile(file, PhoneBookImporter::findCsvRecordStart, PhoneBookImporter::parseCsv);
+    }
+
+    /**
+     * Imports contacts from vCard file.
+     *
+     * @param file path to vCard file (Path)
+     * @return number of imported records (long)
+     * @throws IOException if file can't be read
+     */
+    public long importVCard(Path file) throws IOException {
+        return importFile(file, (chunk, position, chunkStart, fileEnd) ->
+                findRecordStart(chunk, position, fileEnd, VCARD_RECORD_START), PhoneBookImporter::parseVCard);
+    }
+
+    /**
+     * @return number of records skipped by all imports of this importer because of invalid phone numbers (long)
+     */
+    public long getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    private long importFile(Path file, RecordFinder recordFinder, ChunkParser parser) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long chunkStart = 0;
+            while (chunkStart < fileSize) {
+                //mapping next window of chunks
+                List<ByteBuffer> chunks = new ArrayList<>(window);
+                while (chunks.size() < window && chunkStart < fileSize) {
+                    ByteBuffer chunk = mapChunk(channel, fileSize, chunkStart, recordFinder);
+                    chunks.add(chunk);
+                    chunkStart += chunk.limit();
+                }
+
+                //parsing window in parallel, merging in file order
+                List<Batch> batches = chunks.parallelStream()
+                        .map(chunk -> parser.parse(StandardCharsets.UTF_8.decode(chunk)))
+                        .collect(Collectors.toList());
+                for (Batch batch : batches) {
+                    phoneBook.addContacts(batch.contacts);
+                    records += batch.records;
+                    rejectedRecords += batch.rejectedRecords;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Maps chunk starting at given record start and ending at the first record start after chunk size. Boundary is
+     * searched in the mapped bytes, which are then parsed, so file is read once. Mapping twice the chunk size leaves
+     * room for the record crossing chunk size, longer records make mapping grow up to the largest mappable size.
+     *
+     * @return chunk of whole records ending at record start or file end (ByteBuffer)
+     * @throws IOException if file can't be read, or no record ends within the largest mappable size
+     */
+    private ByteBuffer mapChunk(FileChannel channel, long fileSize, long chunkStart, RecordFinder recordFinder)
+            throws IOException {
+        long mapSize = Math.min(2L * chunkSize, MAX_MAP_SIZE);
+        while (true) {
+            boolean fileEnd = fileSize - chunkStart <= mapSize;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart,
+                    fileEnd ? fileSize - chunkStart : mapSize);
+            int position = Math.min(chunkSize, mapped.limit());
+            int chunkEnd = recordFinder.find(mapped, position, chunkStart, fileEnd);
+            if (chunkEnd >= 0) return mapped.slice(0, chunkEnd);
+            if (mapSize == MAX_MAP_SIZE) {
+                throw new IOException("No record ends within " + MAX_MAP_SIZE + " bytes after byte "
+                        + (chunkStart + position) + " of the file!");
+            }
+            mapSize = Math.min(mapSize * 2, MAX_MAP_SIZE);
+        }
+    }
+
+    /**
+     * Finds first record start at or after given position of the chunk. Record starts right after the line break of
+     * record start marker.
+     *
+     * @return position of record start in the chunk, chunk end if there are no more records in the file,
+     * or -1 if record crossing the position does not end in the chunk
+     */
+    private static int findRecordStart(ByteBuffer chunk, int position, boolean fileEnd, byte[] recordStart) {
+        int limit = chunk.limit();
+        //position itself is a record start if it is preceded by matching marker
+        for (int i = Math.max(0, position - 1); i + recordStart.length <= limit; i++) {
+            if (matches(chunk, i, recordStart)) return i + 1;
+        }
+        return fileEnd ? limit : -1;
+    }
+
+    /**
+     * Finds first CSV record start at or after given position of the chunk. Line break ends a record only outside
+     * of quoted name, so quotes are counted from chunk start, which is a record start: escaped quote is counted twice,
+     * and line break is outside of quotes when number of quotes before it is even. Quote and line break bytes never
+     * occur inside multibyte UTF-8 characters.
+     *
+     * @return position of record start in the chunk, chunk end if there are no more records in the file,
+     * or -1 if record crossing the position does not end in the chunk
+     * @throws IOException if quote opened in the chunk is not closed until the end of the file
+     */
+    private static int findCsvRecordStart(ByteBuffer chunk, int position, long chunkStart, boolean fileEnd)
+            throws IOException {
+        int limit = chunk.limit();
+        int quoteStart = -1;
+        for (int i = 0; i < limit; i++) {
+            byte b = chunk.get(i);
+            if (b == '"') quoteStart = quoteStart < 0 ? i : -1;
+            else if (b == '\n' && quoteStart < 0 && i + 1 >= position) return i + 1;
+        }
+        if (!fileEnd) return -1;
+        if (quoteStart >= 0) {
+            throw new IOException("Unterminated quote at byte " + (chunkStart + quoteStart) + " of CSV file!");
+        }
+        return limit;
+    }
+
+    private static boolean matches(ByteBuffer bytes, int offset, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (bytes.get(offset + i) != pattern[i]) return false;
+        }
+        return true;
+    }
+
+    private static Batch parseCsv(CharBuffer chunk) {
+        Batch batch = new Batch();
+        for (String line : lines(chunk, false, true)) {
+            if (line.isBlank() || line.equalsIgnoreCase("name,phone")) continue;
+
+            String name;
+            int phonesStart;
+            if (line.charAt(0) == '"') {
+                StringBuilder quotedName = new StringBuilder();
+                int i = 1;
+                while (i < line.length()) {
+                    char c = line.charAt(i);
+                    if (c == '"') {
+                        if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            quotedName.append('"');
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    quotedName.append(c);
+                    i++;
+                }
+                name = quotedName.toString();
+                phonesStart = line.indexOf(',', i);
+            } else {
+                phonesStart = line.indexOf(',');
+                name = phonesStart < 0 ? line.trim() : line.substring(0, phonesStart).trim();
+            }
+
+            List<String> phones = new ArrayList<>();
+            if (phonesStart >= 0) {
+                for (String phone : line.substring(phonesStart + 1).split(",")) {
+                    if (!phone.isBlank()) phones.add(phone.trim());
+                }
+            }
+            batch.addIfValid(name, phones);
+        }
+        return batch;
+    }
+
+    private static Batch parseVCard(CharBuffer chunk) {
+        Batch batch = new Batch();
+        String name = null;
+        List<String> phones = new ArrayList<>();
+        for (String line : lines(chunk, true, false)) {
+            int colon = line.indexOf(':');
+            if (colon < 0) continue;
+            String property = line.substring(0, colon).toUpperCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            if (property.equals("BEGIN")) {
+                name = null;
+                phones = new ArrayList<>();
+            } else if (property.equals("FN")) {
+                name = value;
+            } else if (property.equals("TEL") || property.startsWith("TEL;")) {
+                if (!value.isEmpty()) phones.add(value);
+            } else if (property.equals("END") && name != null) {
+                batch.addIfValid(name, phones);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Splits chunk into lines. Line breaks may be "\n" or "\r\n".
+     * If unfolding is on, folded vCard lines (continuation lines starting with space or tab) are joined with
+     * previous line. If quoting is on, line breaks inside double quotes are kept in the line.
+     */
+    private static List<String> lines(CharBuffer chunk, boolean unfold, boolean quoting) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        boolean quoted = false;
+        int length = chunk.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? chunk.charAt(i) : '\n';
+            if (quoting && c == '"') quoted = !quoted;
+            if (c != '\n' || quoted && i < length) {
+                if (c != '\r') line.append(c);
+                continue;
+            }
+            boolean folded = unfold && i + 1 < length && (chunk.charAt(i + 1) == ' ' || chunk.charAt(i + 1) == '\t');
+            if (folded) {
+                i++;
+                continue;
+            }
+            if (line.length() > 0) lines.add(line.toString());
+            line.setLength(0);
+        }
+        return lines;
+    }
+
+    @FunctionalInterface
+    private interface RecordFinder {
+        /**
+         * @param chunk      mapped bytes starting at record start (ByteBuffer)
+         * @param position   position in the chunk to search record start from (int)
+         * @param chunkStart position of the chunk in the file (long)
+         * @param fileEnd    whether the chunk ends at file end (boolean)
+         * @return position of first record start in the chunk at or after given position, chunk end if there are
+         * no more records in the file, or -1 if record crossing the position does not end in the chunk (int)
+         * @throws IOException if file is malformed
+         */
+        int find(ByteBuffer chunk, int position, long chunkStart, boolean fileEnd) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ChunkParser {
+        Batch parse(CharBuffer chunk);
+    }
+
+    /**
+     * Contacts parsed from one chunk. Phones of the same contact are deduplicated inside the batch.
+     */
+    private static class Batch {
+        private final Map<String, Set<String>> contacts = new LinkedHashMap<>();
+        private long records;
+        private long rejectedRecords;
+
+        /**
+         * Adds record to the batch, or counts it as rejected if some of its phones is not a valid phone number.
+         */
+        private void addIfValid(String name, List<String> phones) {
+            if (name.isEmpty()) return;
+            for (String phone : phones) {
+                if (PhoneNumber.tryEncode(phone) == 0) {
+                    rejectedRecords++;
+                    return;
+                }
+            }
+            contacts.computeIfAbsent(name, n -> new LinkedHashSet<>()).addAll(phones);
+            records++;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package phone_book;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Persistence engine for {@link PhoneBook}. Every effective mutation of the phone book is appended to a
+ * write-ahead journal file, and when journal grows over compaction threshold, whole phone book is compacted into
+ * a binary snapshot and the journal is started over.
+ * Journal is opened by {@link #open(Path, PhoneBook)}, which restores phone book from the directory:
+ * snapshot is memory-mapped window by window and bulk-loaded by {@link PhoneBook}, which builds name index once
+ * for all loaded contacts, then only journals written after the snapshot are replayed.
+ * <p>
+ * Journals are numbered by generation ("journal-1.log", "journal-2.log" ...). Compaction first switches writes
+ * to the journal of next generation, then writes snapshot of the phone book tagged with that generation, and only
+ * then deletes older journals, so crash at any moment leaves enough files to restore every logged mutation.
+ * Snapshot is flushed to disk before it replaces the previous one, and the rename is flushed before journals are
+ * deleted. Replaying a mutation twice is harmless, because adding existing contact or phone, or removing missing one,
+ * changes nothing. Incomplete record at the end of the journal is left by crash and dropped, but undecodable record
+ * in the middle means corrupted journal and fails {@link #open(Path, PhoneBook)}.
+ * <p>
+ * Compaction triggered by journal size runs on a background thread, so it doesn't stall the writer that
+ * crossed the threshold. Snapshot is written from {@link PhoneBook#snapshot()}, so no lock of phone book is held
+ * during file writes. It takes no time with {@link PersistentContactStore}, while other stores copy their contacts
+ * in memory first.
+ * <p>
+ * Journal writes are serialized, so journal limits write throughput of concurrent phone book.
+ *
+ * @see PhoneBook
+ * @see PhoneBookListener
+ */
+public class PhoneBookJournal implements PhoneBookListener, Closeable {
+
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SNAPSHOT_TEMP_FILE = "snapshot.bin.tmp";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x50425331;
+    private static final int SNAPSHOT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int SNAPSHOT_END = -1;
+    private static final byte CONTACT_ADDED = 1;
+    private static final byte PHONE_ADDED = 2;
+    private static final byte CONTACT_REMOVED = 3;
+    private static final byte PHONE_REMOVED = 4;
+    private static final Logger LOGGER = Logger.getLogger(PhoneBookJournal.class.getName());
+
+    private final Path directory;
+    private final PhoneBook phoneBook;
+    private final long compactionThreshold;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Object compactionLock = new Object();
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "phone-book-journal-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(1024);
+    private FileChannel journal;
+    private long generation;
+    private long journalSize;
+
+    private PhoneBookJournal(Path directory, PhoneBook phoneBook, long compactionThreshold) {
+        this.directory = directory;
+        this.phoneBook = phoneBook;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Restores phone book from given directory and starts journaling its mutations there,
+     * with {@link #DEFAULT_COMPACTION_THRESHOLD}.
+     *
+     * @param directory directory with snapshot and journal files, created if absent (Path)
+     * @param phoneBook empty phone book to restore contacts into ({@link PhoneBook} object)
+     * @return journal attached to phone book ({@link PhoneBookJournal} object)
+     * @throws IOException if files can't be read or written
+     */
+    public static PhoneBookJournal open(Path directory, PhoneBook phoneBook) throws IOException {
+        return open(directory, phoneBook, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Restores phone book from given directory and starts journaling its mutations there.
+     *
+     * @param directory           directory with snapshot and journal files, created if absent (Path)
+     * @param phoneBook           empty phone book to restore contacts into ({@link PhoneBook} object)
+     * @param compactionThreshold journal size in bytes that triggers compaction (long)
+     * @return journal attached to phone book ({@link PhoneBookJournal} object)
+     * @throws IOException if files can't be read or written
+     */
+    public static PhoneBookJournal open(Path directory, PhoneBook phoneBook, long compactionThreshold)
+            throws IOException {
+        Files.createDirectories(directory);
+        PhoneBookJournal journal = new PhoneBookJournal(directory, phoneBook, compactionThreshold);
+
+        long snapshotGeneration = loadSnapshot(directory.resolve(SNAPSHOT_FILE), phoneBook);
+        long lastGeneration = Math.max(snapshotGeneration, 1);
+        long validLength = 0;
+        for (long journalGeneration : listJournalGenerations(directory)) {
+            Path journalFile = journal.journalFile(journalGeneration);
+            if (journalGeneration < snapshotGeneration) {
+                //leftover of finished compaction
+                Files.delete(journalFile);
+                continue;
+            }
+            validLength = replayJournal(journalFile, phoneBook);
+            lastGeneration = journalGeneration;
+        }
+
+        journal.generation = lastGeneration;
+        journal.journal = FileChannel.open(journal.journalFile(lastGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        //dropping torn record left by crash
+        journal.journal.truncate(validLength);
+        journal.journal.position(validLength);
+        journal.journalSize = validLength;
+
+        phoneBook.addListener(journal);
+        return journal;
+    }
+
+    @Override
+    public void contactAdded(String name) {
+        append(CONTACT_ADDED, name, null);
+    }
+
+    @Override
+    public void phoneAdded(String name, String phone) {
+        append(PHONE_ADDED, name, phone);
+    }
+
+    @Override
+    public void contactRemoved(String name) {
+        append(CONTACT_REMOVED, name, null);
+    }
+
+    @Override
+    public void phoneRemoved(String name, String phone) {
+        append(PHONE_REMOVED, name, phone);
+    }
+
+    /**
+     * Writes snapshot of the phone book and deletes journals it covers.
+     * Writers are blocked only while journal is switched to the next generation, not while snapshot is written.
+     * Waits for running background compaction, if any.
+     *
+     * @throws IOException if files can't be written
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            compacting.set(true);
+            try {
+                writeSnapshot();
+            } finally {
+                compacting.set(false);
+            }
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        long snapshotGeneration;
+        synchronized (this) {
+            journal.force(false);
+            journal.close();
+            generation++;
+            journal = FileChannel.open(journalFile(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            journalSize = 0;
+            snapshotGeneration = generation;
+        }
+
+        Path tempFile = directory.resolve(SNAPSHOT_TEMP_FILE);
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                     1024 * 1024))) {
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeLong(snapshotGeneration);
+            UncheckedIOException[] failure = new UncheckedIOException[1];
+            phoneBook.snapshot().forEach(contact -> {
+                if (failure[0] != null) return;
+                try {
+                    writeString(output, contact.getName());
+                    output.writeInt(contact.getPhones().size());
+                    for (String phone : contact.getPhones()) {
+                        writeString(output, phone);
+                    }
+                } catch (IOException e) {
+                    failure[0] = new UncheckedIOException(e);
+                }
+            });
+            if (failure[0] != null) throw failure[0].getCause();
+            output.writeInt(SNAPSHOT_END);
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        for (long journalGeneration : listJournalGenerations(directory)) {
+            if (journalGeneration < snapshotGeneration) Files.deleteIfExists(journalFile(journalGeneration));
+        }
+    }
+
+    /**
+     * Stops journaling, waits for background compaction and flushes journal to disk.
+     *
+     * @throws IOException if journal can't be flushed
+     */
+    @Override
+    public void close() throws IOException {
+        phoneBook.removeListener(this);
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (journal.isOpen()) {
+                journal.force(false);
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Flushes directory entries, so snapshot rename survives crash before older journals are deleted.
+     * Some platforms can't open directories, there rename is flushed by file system itself.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //directory can't be opened on this platform
+        }
+    }
+
+    private void append(byte operation, String name, String phone) {
+        boolean needsCompaction;
+        synchronized (this) {
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            byte[] phoneBytes = phone == null ? new byte[0] : phone.getBytes(StandardCharsets.UTF_8);
+            int recordSize = 1 + 4 + nameBytes.length + 4 + phoneBytes.length;
+            if (recordBuffer.capacity() < recordSize) recordBuffer = ByteBuffer.allocate(recordSize * 2);
+
+            recordBuffer.clear();
+            recordBuffer.put(operation);
+            recordBuffer.putInt(nameBytes.length).put(nameBytes);
+            recordBuffer.putInt(phoneBytes.length).put(phoneBytes);
+            recordBuffer.flip();
+            try {
+                while (recordBuffer.hasRemaining()) journal.write(recordBuffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't write phone book journal", e);
+            }
+            journalSize += recordSize;
+            needsCompaction = journalSize >= compactionThreshold;
+        }
+
+        if (needsCompaction && compacting.compareAndSet(false, true)) {
+            try {
+                compactionExecutor.execute(this::compactInBackground);
+            } catch (RejectedExecutionException e) {
+                //journal is closing
+                compacting.set(false);
+            }
+        }
+    }
+
+    private void compactInBackground() {
+        synchronized (compactionLock) {
+            try {
+                writeSnapshot();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Can't compact phone book journal in " + directory, e);
+            } finally {
+                compacting.set(false);
+            }
+        }
+    }
+
+    private Path journalFile(long journalGeneration) {
+        return directory.resolve(JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Bulk-loads snapshot into phone book.
+     *
+     * @return generation of first journal not covered by snapshot, or 0 if there is no snapshot
+     */
+    private static long loadSnapshot(Path snapshotFile, PhoneBook phoneBook) throws IOException {
+        if (!Files.exists(snapshotFile)) return 0;
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            SnapshotReader reader = new SnapshotReader(channel);
+            if (reader.window.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a phone book snapshot: " + snapshotFile);
+            }
+            long snapshotGeneration = reader.window.getLong();
+            phoneBook.load(reader);
+            return snapshotGeneration;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Phone book snapshot is truncated: " + snapshotFile, e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Phone book snapshot is corrupted: " + snapshotFile, e);
+        }
+    }
+
+    /**
+     * Applies journal records to phone book. Record cut short by the end of the journal, or zero-filled tail,
+     * is torn by crash and stops replay. Any other record that can't be decoded or applied means corrupted journal.
+     *
+     * @return length of journal part made of complete records
+     * @throws IOException if journal can't be read or is corrupted
+     */
+    private static long replayJournal(Path journalFile, PhoneBook phoneBook) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int recordStart = 0;
+            try {
+                while (buffer.hasRemaining()) {
+                    recordStart = buffer.position();
+                    byte operation = buffer.get();
+                    if (operation == 0 && isZeroFilled(buffer, recordStart)) return recordStart;
+                    String name = readString(buffer);
+                    String phone = readString(buffer);
+                    if (name == null || phone == null) throw new IllegalArgumentException("Unexpected end marker!");
+                    if (operation == CONTACT_ADDED) phoneBook.addContact(name);
+                    else if (operation == PHONE_ADDED) phoneBook.addPhoneToContact(name, phone);
+                    else if (operation == CONTACT_REMOVED) phoneBook.removeContact(name);
+                    else if (operation == PHONE_REMOVED) phoneBook.removePhone(name, phone);
+                    else throw new IllegalArgumentException("Unknown operation " + operation + "!");
+                }
+                return buffer.position();
+            } catch (BufferUnderflowException e) {
+                //torn record at the end of journal
+                return recordStart;
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Phone book journal is corrupted at offset " + recordStart + ": " + journalFile,
+                        e);
+            }
+        }
+    }
+
+    private static boolean isZeroFilled(ByteBuffer buffer, int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) != 0) return false;
+        }
+        return true;
+    }
+
+    private static List<Long> listJournalGenerations(Path directory) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.startsWith(JOURNAL_PREFIX) && fileName.endsWith(JOURNAL_SUFFIX))
+                    .forEach(fileName -> {
+                        String number = fileName.substring(JOURNAL_PREFIX.length(),
+                                fileName.length() - JOURNAL_SUFFIX.length());
+                        try {
+                            generations.add(Long.parseLong(number));
+                        } catch (NumberFormatException ignored) {
+                            //not a journal file
+                        }
+                    });
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads length-prefixed UTF-8 string.
+     *
+     * @return string, or null if length marks end of snapshot
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == SNAPSHOT_END) return null;
+        if (length < 0) throw new IllegalArgumentException("Negative string length " + length + "!");
+        if (length > buffer.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads snapshot contacts through a window of {@link #SNAPSHOT_WINDOW_SIZE} bytes mapped at a time, so snapshot
+     * may be larger than one mapping allows. Contact crossing the end of the window is read again from a window
+     * mapped at its start, and window is made twice larger while it can't hold one contact.
+     */
+    private static class SnapshotReader implements Iterator<Contact> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private long windowStart;
+        private MappedByteBuffer window;
+        private Contact nextContact;
+        private boolean finished;
+
+        private SnapshotReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            map(0, SNAPSHOT_WINDOW_SIZE);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextContact == null && !finished) {
+                int contactStart = window.position();
+                try {
+                    String name = readString(window);
+                    if (name == null) {
+                        finished = true;
+                        break;
+                    }
+                    int phoneCount = window.getInt();
+                    if (phoneCount < 0) throw new IllegalArgumentException("Negative phone count " + phoneCount + "!");
+                    List<String> phones = new ArrayList<>(Math.min(phoneCount, 16));
+                    for (int i = 0; i < phoneCount; i++) {
+                        phones.add(readString(window));
+                    }
+                    nextContact = new Contact(name, phones);
+                } catch (BufferUnderflowException e) {
+                    if (windowStart + window.limit() == fileSize) throw e;
+                    if (contactStart == 0 && window.limit() == Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("Snapshot contact is larger than 2 GB!");
+                    }
+                    long windowSize = contactStart == 0 ? 2L * window.limit() : SNAPSHOT_WINDOW_SIZE;
+                    try {
+                        map(windowStart + contactStart, windowSize);
+                    } catch (IOException mapFailure) {
+                        throw new UncheckedIOException(mapFailure);
+                    }
+                }
+            }
+            return !finished;
+        }
+
+        @Override
+        public Contact next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Contact contact = nextContact;
+            nextContact = null;
+            return contact;
+        }
+
+        private void map(long start, long size) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(Math.min(size, fileSize - start),
+                    Integer.MAX_VALUE));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package phone_book;
+
+/**
+ * Listener of {@link PhoneBook} mutations. Listener is called after the mutation is applied, and only for
+ * effective mutations: adding existing contact or phone, or removing missing one, does not produce any call.
+ * Methods are called on the thread that made the mutation, under lock of the changed contact, so mutations
+ * of one contact are reported in order.
+ *
+ * @see PhoneBook#addListener(PhoneBookListener)
+ */
+public interface PhoneBookListener {
+
+    /**
+     * Called when new contact is added.
+     *
+     * @param name contact name (String)
+     */
+    default void contactAdded(String name) {
+    }
+
+    /**
+     * Called when new phone is added to contact.
+     *
+     * @param name  contact name (String)
+     * @param phone added phone (String)
+     */
+    default void phoneAdded(String name, String phone) {
+    }
+
+    /**
+     * Called when contact is removed with all its phones. Phones of removed contact are not reported separately.
+     *
+     * @param name contact name (String)
+     */
+    default void contactRemoved(String name) {
+    }
+
+    /**
+     * Called when phone is removed from contact.
+     *
+     * @param name  contact name (String)
+     * @param phone removed phone (String)
+     */
+    default void phoneRemoved(String name, String phone) {
+    }
+}
@@ -0,0 +1,170 @@
+package phone_book;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operation metrics of {@link PhoneBook}: call counters and histograms of latency and result size of every
+ * {@link Operation}. Recording takes a couple of atomic increments and does not allocate or lock, and metrics are
+ * thread-safe. Metrics are collected only while enabled by {@link PhoneBook#setMetricsEnabled(boolean)}, and
+ * disabled metrics cost phone book one field read per operation.
+ * <p>
+ * Metrics can be watched over JMX after {@link #register(String)}, and every operation is also committed as
+ * "phone_book.Operation" event to running flight recordings.
+ */
+public class PhoneBookMetrics implements PhoneBookMetricsMXBean {
+
+    public static final String DOMAIN = "phone_book";
+
+    /**
+     * Measured operations of phone book.
+     */
+    public enum Operation {
+        ADD_CONTACT, ADD_PHONE, ADD_BATCH, REMOVE_CONTACT, REMOVE_PHONE, MERGE_CONTACTS, COMPACT,
+        //getContactByName that found contact by exact name, and one that fell back to partial search
+        GET_EXACT, GET_PARTIAL,
+        FIND_CONTACT, FIND_PAGE, FIND_SIMILAR, FIND_BY_PREFIX, FIND_IGNORING_CASE, FIND_BY_PHONE, FIND_BY_PHONE_PREFIX
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+    private final LogHistogram[] latencies = new LogHistogram[OPERATIONS.length];
+    private final LogHistogram[] resultSizes = new LogHistogram[OPERATIONS.length];
+    private volatile ObjectName objectName;
+
+    PhoneBookMetrics() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            counts[i] = new LongAdder();
+            latencies[i] = new LogHistogram();
+            resultSizes[i] = new LogHistogram();
+        }
+    }
+
+    /**
+     * @param operation operation ({@link Operation} enum)
+     * @return number of calls of operation (long)
+     */
+    public long getCount(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    /**
+     * @param operation operation ({@link Operation} enum)
+     * @return current statistics of operation ({@link OperationStats} object)
+     */
+    public OperationStats getStats(Operation operation) {
+        int i = operation.ordinal();
+        return new OperationStats(operation.name(), latencies[i], resultSizes[i]);
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> stats = new ArrayList<>(OPERATIONS.length);
+        for (Operation operation : OPERATIONS) {
+            stats.add(getStats(operation));
+        }
+        return stats;
+    }
+
+    @Override
+    public long getExactLookupCount() {
+        return getCount(Operation.GET_EXACT);
+    }
+
+    @Override
+    public long getPartialLookupCount() {
+        return getCount(Operation.GET_PARTIAL);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            counts[i].reset();
+            latencies[i].reset();
+            resultSizes[i].reset();
+        }
+    }
+
+    /**
+     * Registers metrics in platform MBean server as "phone_book:type=PhoneBookMetrics,name=&lt;name&gt;".
+     *
+     * @param name name telling this phone book from others (String)
+     * @return name of registered MBean ({@link ObjectName} object)
+     * @throws IllegalArgumentException if name is not valid in MBean name or is already taken
+     */
+    public synchronized ObjectName register(String name) throws IllegalArgumentException {
+        if (objectName != null) throw new IllegalArgumentException("Metrics are already registered!");
+        try {
+            ObjectName newName = new ObjectName(DOMAIN + ":type=PhoneBookMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            objectName = newName;
+            return newName;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Metrics can't be registered as " + name + '!', e);
+        }
+    }
+
+    /**
+     * Removes metrics from platform MBean server, if they were registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            //already unregistered by someone else
+        }
+        objectName = null;
+    }
+
+    /**
+     * Records call of operation which does not find anything.
+     *
+     * @param startNanos {@link System#nanoTime()} taken before the call (long)
+     */
+    void record(Operation operation, long startNanos) {
+        record(operation, startNanos, -1);
+    }
+
+    /**
+     * Records call of operation.
+     *
+     * @param startNanos {@link System#nanoTime()} taken before the call (long)
+     * @param resultSize number of found contacts or phones, negative if operation does not find anything (int)
+     */
+    void record(Operation operation, long startNanos, int resultSize) {
+        long latency = System.nanoTime() - startNanos;
+        int i = operation.ordinal();
+        counts[i].increment();
+        latencies[i].record(latency);
+        if (resultSize >= 0) resultSizes[i].record(resultSize);
+
+        //escape analysis removes the event when no recording wants it
+        PhoneBookOperationEvent event = new PhoneBookOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation.name();
+            event.latency = latency;
+            event.resultSize = Math.max(resultSize, 0);
+            event.commit();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PhoneBookMetrics: (");
+        for (Operation operation : OPERATIONS) {
+            long count = getCount(operation);
+            if (count == 0) continue;
+            if (builder.charAt(builder.length() - 1) != '(') builder.append(", ");
+            builder.append(operation).append('=').append(count);
+        }
+        return builder.append(')').toString();
+    }
+}
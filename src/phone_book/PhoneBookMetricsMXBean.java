@@ -0,0 +1,32 @@
+package phone_book;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link PhoneBookMetrics}. Every operation is shown as composite data with its call count,
+ * latency percentiles and result sizes.
+ *
+ * @see PhoneBookMetrics#register(String)
+ */
+public interface PhoneBookMetricsMXBean {
+
+    /**
+     * @return statistics of every operation (List of {@link OperationStats} objects)
+     */
+    List<OperationStats> getOperations();
+
+    /**
+     * @return number of {@link PhoneBook#getContactByName(String)} calls that found contact by exact name (long)
+     */
+    long getExactLookupCount();
+
+    /**
+     * @return number of {@link PhoneBook#getContactByName(String)} calls that fell back to partial search (long)
+     */
+    long getPartialLookupCount();
+
+    /**
+     * Drops all collected statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,25 @@
+package phone_book;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of one phone book operation, committed by {@link PhoneBookMetrics} while metrics are
+ * enabled. Operation is timed by metrics, so its latency is a field and the event itself has no duration.
+ */
+@Name("phone_book.Operation")
+@Label("Phone Book Operation")
+@Category("Phone Book")
+@Description("Call of phone book operation with its latency and number of found contacts or phones")
+@StackTrace(false)
+final class PhoneBookOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Result Size")
+    int resultSize;
+}
@@ -0,0 +1,83 @@
+package phone_book;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Line protocol spoken by {@link PhoneBookServer} and {@link PhoneBookClient}.
+ * Every request and every response is one UTF-8 line of tab-separated fields ending with '\n'.
+ * Requests:
+ * <ul>
+ *     <li>"ADD name" or "ADD name phone" - adds contact, answered with "OK"</li>
+ *     <li>"REMOVE name" or "REMOVE name phone" - removes contact or its phone, answered with "OK",
+ *     or "NONE" if there was nothing to remove</li>
+ *     <li>"GET name" - answered with "OK phone..." or "NONE" if there is no such contact</li>
+ *     <li>"FIND partialName [limit]" - answered with "OK name..." of contacts which names contain given part,
+ *     limit is capped at {@link PhoneBookServer#MAX_FIND_LIMIT}</li>
+ *     <li>"PHONE phone" - answered with "OK name..." of phone owners, or "NONE" if phone is unknown</li>
+ * </ul>
+ * Failed request is answered with "ERR message". Responses come in order of requests, so client may send many
+ * requests before reading responses (pipelining).
+ */
+final class PhoneBookProtocol {
+
+    static final String ADD = "ADD";
+    static final String REMOVE = "REMOVE";
+    static final String GET = "GET";
+    static final String FIND = "FIND";
+    static final String PHONE = "PHONE";
+    static final String OK = "OK";
+    static final String NONE = "NONE";
+    static final String ERROR = "ERR";
+
+    static final char SEPARATOR = '\t';
+    static final byte END = '\n';
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private PhoneBookProtocol() {
+    }
+
+    /**
+     * Builds line of given fields, without line end.
+     *
+     * @param first  first field, command or status (String)
+     * @param fields other fields (Strings)
+     * @return line (String)
+     * @throws IllegalArgumentException if some field contains tab or line break
+     */
+    static String line(String first, Iterable<String> fields) throws IllegalArgumentException {
+        StringBuilder line = new StringBuilder(first);
+        for (String field : fields) {
+            checkField(field);
+            line.append(SEPARATOR).append(field);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Encodes line with line end.
+     *
+     * @param line line without line end (String)
+     * @return UTF-8 bytes (array of bytes)
+     */
+    static byte[] encode(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, encoded, 0, bytes.length);
+        encoded[bytes.length] = END;
+        return encoded;
+    }
+
+    /**
+     * @param line line without line end (String)
+     * @return fields of line (array of Strings)
+     */
+    static String[] fields(String line) {
+        return line.split(String.valueOf(SEPARATOR), -1);
+    }
+
+    private static void checkField(String field) throws IllegalArgumentException {
+        if (field.indexOf(SEPARATOR) >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Field must not contain tabs or line breaks: " + field);
+        }
+    }
+}
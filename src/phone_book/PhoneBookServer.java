@@ -0,0 +1,351 @@
+package phone_book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Network front-end of {@link PhoneBook}, speaking line protocol described in {@link PhoneBookProtocol}.
+ * Server is non-blocking: one selector thread serves all connections, so thousands of idle or slow connections
+ * cost only their buffers. Every request line read from a connection is executed right away and its response
+ * is queued, so pipelined requests are answered in one write. If client does not read its responses and queued
+ * output grows over {@link #MAX_PENDING_OUTPUT} bytes, server stops reading from that client until output drains.
+ * <p>
+ * Requests are executed on the selector thread, so phone book should be concurrent if it is also used
+ * by other threads, and FIND limit is capped at {@link #MAX_FIND_LIMIT}, so one request can't stall other clients
+ * for long. Unexpected failure of a request is logged and answered with "ERR", and failure of a connection closes
+ * only that connection.
+ *
+ * @see PhoneBookClient
+ */
+public class PhoneBookServer implements Closeable {
+
+    public static final int DEFAULT_BACKLOG = 1024;
+    public static final int DEFAULT_FIND_LIMIT = 100;
+    public static final int MAX_FIND_LIMIT = 1000;
+    public static final int MAX_PENDING_OUTPUT = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final Logger LOGGER = Logger.getLogger(PhoneBookServer.class.getName());
+
+    private final PhoneBook phoneBook;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread thread;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private volatile boolean running = true;
+    private volatile int connectionCount;
+
+    private PhoneBookServer(PhoneBook phoneBook, InetSocketAddress address, int backlog) throws IOException {
+        this.phoneBook = phoneBook;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address, backlog);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "phone-book-server-" + getPort());
+    }
+
+    /**
+     * Starts server on loopback address.
+     *
+     * @param phoneBook served phone book ({@link PhoneBook} object)
+     * @param port      port to listen, or 0 for any free port (int)
+     * @return started server ({@link PhoneBookServer} object)
+     * @throws IOException if server socket can't be opened
+     */
+    public static PhoneBookServer start(PhoneBook phoneBook, int port) throws IOException {
+        return start(phoneBook, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), DEFAULT_BACKLOG);
+    }
+
+    /**
+     * Starts server.
+     *
+     * @param phoneBook served phone book ({@link PhoneBook} object)
+     * @param address   address to listen ({@link InetSocketAddress} object)
+     * @param backlog   maximum number of connections waiting to be accepted (int)
+     * @return started server ({@link PhoneBookServer} object)
+     * @throws IOException if server socket can't be opened
+     */
+    public static PhoneBookServer start(PhoneBook phoneBook, InetSocketAddress address, int backlog)
+            throws IOException {
+        PhoneBookServer server = new PhoneBookServer(phoneBook, address, backlog);
+        server.thread.start();
+        return server;
+    }
+
+    /**
+     * Runs server of new concurrent phone book in this JVM, for example as a shard of {@link ShardedPhoneBook}.
+     *
+     * @param args port to listen on loopback address
+     * @throws IOException if server socket can't be opened
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java phone_book.PhoneBookServer <port>");
+            return;
+        }
+        PhoneBookServer server = start(new PhoneBook(true), Integer.parseInt(args[0]));
+        System.out.println("Phone book server is listening on port " + server.getPort());
+    }
+
+    /**
+     * @return port server listens on (int)
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return number of open client connections (int)
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Stops server and closes all connections. Requests not yet answered are dropped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        if (Thread.currentThread() == thread) return;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(this::handle);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Selector is broken, server is stopped", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                //nothing to do, server is stopped anyway
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) return;
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            if (key.isReadable()) read(key);
+            if (key.isValid() && key.isWritable()) flush(key);
+        } catch (IOException | RuntimeException e) {
+            if (key.channel() == serverChannel) {
+                //server socket stays open, accepting is retried on next select
+                LOGGER.log(Level.WARNING, "Can't accept connection", e);
+                return;
+            }
+            if (e instanceof RuntimeException) LOGGER.log(Level.WARNING, "Connection failed, closing it", e);
+            disconnect(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+            connectionCount++;
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        readBuffer.clear();
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            disconnect(key);
+            return;
+        }
+
+        byte[] bytes = readBuffer.array();
+        for (int i = 0; i < read; i++) {
+            if (bytes[i] == PhoneBookProtocol.END) {
+                connection.respond(connection.takeLine());
+            } else {
+                connection.appendToLine(bytes[i]);
+            }
+        }
+        flush(key);
+    }
+
+    private void flush(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer output = connection.output;
+        output.flip();
+        ((SocketChannel) key.channel()).write(output);
+        output.compact();
+
+        int pending = output.position();
+        if (pending == 0) {
+            key.interestOps(SelectionKey.OP_READ);
+        } else if (pending > MAX_PENDING_OUTPUT) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        closeQuietly(key);
+        connectionCount--;
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            //channel is dropped anyway
+        }
+    }
+
+    /**
+     * Executes one request.
+     *
+     * @param request request line without line end (String)
+     * @return response line without line end (String)
+     */
+    String execute(String request) {
+        String[] fields = PhoneBookProtocol.fields(request);
+        try {
+            switch (fields[0]) {
+                case PhoneBookProtocol.ADD:
+                    checkFieldCount(fields, 2, 3);
+                    if (fields.length == 2) phoneBook.addContact(fields[1]);
+                    else phoneBook.addContact(fields[1], fields[2]);
+                    return PhoneBookProtocol.OK;
+                case PhoneBookProtocol.REMOVE:
+                    checkFieldCount(fields, 2, 3);
+                    boolean removed = fields.length == 2
+                            ? phoneBook.removeContact(fields[1])
+                            : phoneBook.removePhone(fields[1], fields[2]);
+                    return removed ? PhoneBookProtocol.OK : PhoneBookProtocol.NONE;
+                case PhoneBookProtocol.GET:
+                    checkFieldCount(fields, 2, 2);
+                    Contact contact = phoneBook.findContact(fields[1]);
+                    if (contact == null) return PhoneBookProtocol.NONE;
+                    return PhoneBookProtocol.line(PhoneBookProtocol.OK, contact.getPhones());
+                case PhoneBookProtocol.FIND:
+                    checkFieldCount(fields, 2, 3);
+                    int limit = fields.length == 3 ? Integer.parseInt(fields[2]) : DEFAULT_FIND_LIMIT;
+                    if (limit <= 0) throw new IllegalArgumentException("Limit must be positive.");
+                    limit = Math.min(limit, MAX_FIND_LIMIT);
+                    List<String> names = phoneBook.findContacts(fields[1])
+                            .limit(limit)
+                            .map(Contact::getName)
+                            .collect(Collectors.toList());
+                    return PhoneBookProtocol.line(PhoneBookProtocol.OK, names);
+                case PhoneBookProtocol.PHONE:
+                    checkFieldCount(fields, 2, 2);
+                    Set<String> owners = phoneBook.getContactsByPhone(fields[1]);
+                    if (owners == null) return PhoneBookProtocol.NONE;
+                    return PhoneBookProtocol.line(PhoneBookProtocol.OK, owners);
+                default:
+                    return error("Unknown command: " + fields[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Request " + fields[0] + " failed", e);
+            return error("Internal error");
+        }
+    }
+
+    private static void checkFieldCount(String[] fields, int min, int max) throws IllegalArgumentException {
+        if (fields.length < min || fields.length > max) {
+            throw new IllegalArgumentException("Wrong number of fields for " + fields[0] + ": " + (fields.length - 1));
+        }
+    }
+
+    private static String error(String message) {
+        String cleanMessage = message == null ? "" : message.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        return PhoneBookProtocol.ERROR + PhoneBookProtocol.SEPARATOR + cleanMessage;
+    }
+
+    /**
+     * State of one client connection: request line being read and responses not yet written.
+     */
+    private class Connection {
+        private byte[] line = new byte[128];
+        private int lineLength;
+        private boolean tooLong;
+        private ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private void appendToLine(byte b) {
+            if (tooLong) return;
+            if (lineLength == PhoneBookProtocol.MAX_LINE_LENGTH) {
+                tooLong = true;
+                return;
+            }
+            if (lineLength == line.length) line = Arrays.copyOf(line, line.length * 2);
+            line[lineLength++] = b;
+        }
+
+        /**
+         * @return complete request line, or null if it was too long
+         */
+        private String takeLine() {
+            int length = lineLength;
+            if (length > 0 && line[length - 1] == '\r') length--;
+            String request = tooLong ? null : new String(line, 0, length, StandardCharsets.UTF_8);
+            lineLength = 0;
+            tooLong = false;
+            return request;
+        }
+
+        private void respond(String request) {
+            String response = request == null
+                    ? error("Request is longer than " + PhoneBookProtocol.MAX_LINE_LENGTH + " bytes")
+                    : execute(request);
+            byte[] bytes = PhoneBookProtocol.encode(response);
+            if (output.remaining() < bytes.length) {
+                int capacity = Math.max(output.capacity() * 2, output.position() + bytes.length);
+                ByteBuffer newOutput = ByteBuffer.allocate(capacity);
+                output.flip();
+                newOutput.put(output);
+                output = newOutput;
+            }
+            output.put(bytes);
+        }
+    }
+}
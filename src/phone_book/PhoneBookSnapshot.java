@@ -0,0 +1,54 @@
+package phone_book;
+
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Immutable point-in-time view of {@link PhoneBook} contacts, returned by {@link PhoneBook#snapshot()}.
+ * Snapshot does not change when phone book changes, and can be read for as long as needed without blocking writers.
+ *
+ * @see PersistentContactStore
+ */
+public final class PhoneBookSnapshot {
+
+    private final PersistentContactMap contacts;
+
+    PhoneBookSnapshot(PersistentContactMap contacts) {
+        this.contacts = contacts;
+    }
+
+    /**
+     * Finds contact by its exact name.
+     *
+     * @param name contact name (String)
+     * @return found contact ({@link Contact} object), or null if there is no such contact
+     */
+    public Contact findContact(String name) {
+        long[] phones = contacts.get(name);
+        if (phones == null) return null;
+        else return new Contact(name, PhoneNumber.decodeAll(phones));
+    }
+
+    /**
+     * @return number of contacts (int)
+     */
+    public int size() {
+        return contacts.size();
+    }
+
+    /**
+     * Passes every contact to given action, in no particular order.
+     *
+     * @param action action ({@link Consumer} object)
+     */
+    public void forEach(Consumer<Contact> action) {
+        contacts.forEach((name, phones) -> action.accept(new Contact(name, PhoneNumber.decodeAll(phones))));
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "PhoneBook={", "}");
+        forEach(contact -> joiner.add(contact.toString()));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,218 @@
+package phone_book;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Digit trie over normalized phone numbers used by {@link PhoneBook}. Numbers with leading '+' and numbers without it
+ * are kept in separate subtries. Node of a stored number holds the set of contacts owning this number, so exact lookup
+ * walks at most {@link PhoneNumber#MAX_DIGITS} nodes, taking digits straight from the packed number, and prefix
+ * lookup collects owners of the prefix subtree.
+ * Children are created with compare-and-set, and owner set of a node is created under lock of that node only,
+ * so concurrent index can be read without locking while numbers are added.
+ * Removing owner leaves its number node in place, and the number is remembered, so {@link #compact()} can later
+ * prune branches without owners. Adding number takes read lock of one {@link StripedLock} stripe only.
+ * Compaction excludes adding numbers, but never blocks readers.
+ *
+ * @see PhoneNumber
+ */
+class PhoneIndex {
+
+    private static final int COMPACTION_BATCH_SIZE = 256;
+
+    private final boolean concurrent;
+    private final DigitNode plusRoot = new DigitNode();
+    private final DigitNode plainRoot = new DigitNode();
+    private final Set<Long> emptiedPhones;
+    private final StripedLock structureLock = new StripedLock();
+
+    PhoneIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.emptiedPhones = concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+
+    /**
+     * Adds owner to the phone number.
+     *
+     * @param encodedPhone packed phone number (long)
+     * @param name         contact name (String)
+     */
+    void add(long encodedPhone, String name) {
+        Lock lock = structureLock.readLock(Long.hashCode(encodedPhone));
+        lock.lock();
+        try {
+            long digits = PhoneNumber.packedDigits(encodedPhone);
+            DigitNode node = PhoneNumber.hasPlus(encodedPhone) ? plusRoot : plainRoot;
+            for (long divisor = topDivisor(digits); divisor > 0; divisor /= 10) {
+                int digit = (int) (digits / divisor % 10);
+                DigitNode child = node.children.get(digit);
+                if (child == null) {
+                    node.children.compareAndSet(digit, null, new DigitNode());
+                    child = node.children.get(digit);
+                }
+                node = child;
+            }
+
+            Set<String> owners = node.owners;
+            if (owners == null) {
+                synchronized (node) {
+                    owners = node.owners;
+                    if (owners == null) {
+                        owners = concurrent ? ConcurrentHashMap.newKeySet() : new LinkedHashSet<>();
+                        node.owners = owners;
+                    }
+                }
+            }
+            owners.add(name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes owner from the phone number.
+     *
+     * @param encodedPhone packed phone number (long)
+     * @param name         contact name (String)
+     */
+    void remove(long encodedPhone, String name) {
+        DigitNode node = find(encodedPhone);
+        Set<String> owners = node == null ? null : node.owners;
+        if (owners != null && owners.remove(name) && owners.isEmpty()) emptiedPhones.add(encodedPhone);
+    }
+
+    /**
+     * @return number of phone numbers which lost all owners and are not compacted yet (int)
+     */
+    int getTombstoneCount() {
+        return emptiedPhones.size();
+    }
+
+    /**
+     * Prunes branches of phone numbers which lost all owners. Numbers are pruned in small batches,
+     * each excluding adds, while lookups go on.
+     */
+    void compact() {
+        List<Long> phones = new ArrayList<>(emptiedPhones);
+        for (int from = 0; from < phones.size(); from += COMPACTION_BATCH_SIZE) {
+            structureLock.lockAll();
+            try {
+                int to = Math.min(from + COMPACTION_BATCH_SIZE, phones.size());
+                for (long encodedPhone : phones.subList(from, to)) {
+                    if (emptiedPhones.remove(encodedPhone)) prune(PhoneNumber.decode(encodedPhone));
+                }
+            } finally {
+                structureLock.unlockAll();
+            }
+        }
+    }
+
+    /**
+     * @param encodedPhone packed phone number (long)
+     * @return owners of phone number, or null if number is unknown or has no owners (Set of Strings)
+     */
+    Set<String> getOwners(long encodedPhone) {
+        DigitNode node = find(encodedPhone);
+        Set<String> owners = node == null ? null : node.owners;
+        return owners == null || owners.isEmpty() ? null : owners;
+    }
+
+    /**
+     * Finds owners of all numbers starting with any of given prefixes.
+     *
+     * @param normalizedPrefixes beginnings of normalized phone numbers (Collection of Strings)
+     * @return sorted set of owners, empty if nothing found
+     */
+    Set<String> findOwnersByPrefix(Collection<String> normalizedPrefixes) {
+        Set<String> foundOwners = new TreeSet<>();
+        Deque<DigitNode> stack = new ArrayDeque<>();
+        for (String normalizedPrefix : normalizedPrefixes) {
+            DigitNode node = find(normalizedPrefix);
+            if (node != null) stack.push(node);
+        }
+        while (!stack.isEmpty()) {
+            DigitNode current = stack.pop();
+            Set<String> owners = current.owners;
+            if (owners != null) foundOwners.addAll(owners);
+            for (int digit = 0; digit < 10; digit++) {
+                DigitNode child = current.children.get(digit);
+                if (child != null) stack.push(child);
+            }
+        }
+        return foundOwners;
+    }
+
+    private DigitNode find(long encodedPhone) {
+        long digits = PhoneNumber.packedDigits(encodedPhone);
+        DigitNode node = PhoneNumber.hasPlus(encodedPhone) ? plusRoot : plainRoot;
+        for (long divisor = topDivisor(digits); divisor > 0 && node != null; divisor /= 10) {
+            node = node.children.get((int) (digits / divisor % 10));
+        }
+        return node;
+    }
+
+    /**
+     * @return divisor picking the first digit of packed digits, skipping its extra leading 1 (long)
+     */
+    private static long topDivisor(long packedDigits) {
+        long divisor = 1;
+        while (divisor <= packedDigits / 100) divisor *= 10;
+        return divisor;
+    }
+
+    private DigitNode find(String phone) {
+        DigitNode node = root(phone);
+        for (int i = start(phone); i < phone.length() && node != null; i++) {
+            int digit = phone.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return null;
+            node = node.children.get(digit);
+        }
+        return node;
+    }
+
+    /**
+     * Drops owner set of number if it is empty, and prunes number path from the end while nodes are empty.
+     * Must be called under write lock.
+     */
+    private void prune(String phone) {
+        int start = start(phone);
+        DigitNode[] path = new DigitNode[phone.length() - start + 1];
+        path[0] = root(phone);
+        for (int i = 1; i < path.length; i++) {
+            path[i] = path[i - 1].children.get(phone.charAt(start + i - 1) - '0');
+            if (path[i] == null) return;
+        }
+
+        DigitNode last = path[path.length - 1];
+        if (last.owners != null && last.owners.isEmpty()) last.owners = null;
+        for (int i = path.length - 1; i > 0; i--) {
+            if (path[i].owners != null || hasChildren(path[i])) break;
+            path[i - 1].children.set(phone.charAt(start + i - 1) - '0', null);
+        }
+    }
+
+    private static boolean hasChildren(DigitNode node) {
+        for (int digit = 0; digit < 10; digit++) {
+            if (node.children.get(digit) != null) return true;
+        }
+        return false;
+    }
+
+    private DigitNode root(String phone) {
+        return phone.startsWith("+") ? plusRoot : plainRoot;
+    }
+
+    private static int start(String phone) {
+        return phone.startsWith("+") ? 1 : 0;
+    }
+
+    /**
+     * Trie node. Owners are not null only for nodes of stored numbers.
+     */
+    private static class DigitNode {
+        private final AtomicReferenceArray<DigitNode> children = new AtomicReferenceArray<>(10);
+        private volatile Set<String> owners;
+    }
+}
@@ -0,0 +1,198 @@
+package phone_book;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class that normalizes phone numbers and packs them into primitive longs.
+ * Number is normalized first: spaces, dashes, dots and parentheses are dropped, and what remains must be optional
+ * leading '+' followed by 1 to {@link #MAX_DIGITS} digits. Then number is brought to E.164 form where possible:
+ * international prefix "00" is replaced with '+', and national numbers ("89123334455" or "9123334455") get
+ * country code, {@link #DEFAULT_COUNTRY_CODE} unless another one is given ("+79123334455"). Other numbers without
+ * '+', like short service numbers, are kept as they are.
+ * Digits are packed as decimal value with extra leading 1 (so leading zeros survive), and leading '+' is stored as
+ * separate flag bit. Packed value is never zero, so zero can be used as empty marker.
+ */
+public final class PhoneNumber {
+
+    public static final int MAX_DIGITS = 17;
+    public static final String DEFAULT_COUNTRY_CODE = "7";
+    public static final String TRUNK_PREFIX = "8";
+    public static final int NATIONAL_NUMBER_LENGTH = 10;
+
+    private static final String INTERNATIONAL_PREFIX = "00";
+    private static final long PLUS_FLAG = 1L << 62;
+
+    private PhoneNumber() {
+    }
+
+    /**
+     * Normalizes phone number and packs it into long.
+     *
+     * @param phone phone number (String)
+     * @return packed phone number (long)
+     * @throws IllegalArgumentException if string is not a valid phone number
+     */
+    public static long encode(String phone) throws IllegalArgumentException {
+        return encode(phone, DEFAULT_COUNTRY_CODE);
+    }
+
+    /**
+     * Normalizes phone number and packs it into long.
+     *
+     * @param phone       phone number (String)
+     * @param countryCode country code given to national numbers (String)
+     * @return packed phone number (long)
+     * @throws IllegalArgumentException if string is not a valid phone number
+     */
+    public static long encode(String phone, String countryCode) throws IllegalArgumentException {
+        long encoded = tryEncode(phone, countryCode);
+        if (encoded == 0) throw new IllegalArgumentException("Invalid phone number: " + phone);
+        return encoded;
+    }
+
+    /**
+     * Normalizes phone number and packs it into long.
+     *
+     * @param phone phone number (String)
+     * @return packed phone number, or 0 if string is not a valid phone number (long)
+     */
+    public static long tryEncode(String phone) {
+        return tryEncode(phone, DEFAULT_COUNTRY_CODE);
+    }
+
+    /**
+     * Normalizes phone number and packs it into long.
+     *
+     * @param phone       phone number (String)
+     * @param countryCode country code given to national numbers (String)
+     * @return packed phone number, or 0 if string is not a valid phone number (long)
+     */
+    public static long tryEncode(String phone, String countryCode) {
+        String normalized = normalizeOrNull(phone, countryCode);
+        if (normalized == null) return 0;
+        boolean plus = normalized.charAt(0) == '+';
+        String digits = plus ? normalized.substring(1) : normalized;
+        if (digits.isEmpty() || digits.length() > MAX_DIGITS) return 0;
+
+        long packed = 1;
+        for (int i = 0; i < digits.length(); i++) {
+            packed = packed * 10 + (digits.charAt(i) - '0');
+        }
+        return plus ? packed | PLUS_FLAG : packed;
+    }
+
+    /**
+     * Unpacks phone number packed by {@link #encode(String)}.
+     *
+     * @param encoded packed phone number (long)
+     * @return normalized phone number (String)
+     */
+    public static String decode(long encoded) {
+        String digits = Long.toString(packedDigits(encoded)).substring(1);
+        return hasPlus(encoded) ? '+' + digits : digits;
+    }
+
+    /**
+     * @param encoded packed phone number (long)
+     * @return true if number has leading '+' (boolean)
+     */
+    static boolean hasPlus(long encoded) {
+        return (encoded & PLUS_FLAG) != 0;
+    }
+
+    /**
+     * @param encoded packed phone number (long)
+     * @return digits of number as decimal value with extra leading 1 (long)
+     */
+    static long packedDigits(long encoded) {
+        return encoded & ~PLUS_FLAG;
+    }
+
+    /**
+     * Unpacks array of phone numbers packed by {@link #encode(String)}.
+     *
+     * @param encodedPhones packed phone numbers (array of longs)
+     * @return normalized phone numbers (List of Strings)
+     */
+    static List<String> decodeAll(long[] encodedPhones) {
+        List<String> phones = new ArrayList<>(encodedPhones.length);
+        for (long encodedPhone : encodedPhones) {
+            phones.add(decode(encodedPhone));
+        }
+        return phones;
+    }
+
+    /**
+     * Normalizes phone number to the form it is stored in.
+     *
+     * @param phone phone number (String)
+     * @return normalized phone number (String)
+     * @throws IllegalArgumentException if string is not a valid phone number
+     */
+    public static String normalize(String phone) throws IllegalArgumentException {
+        return decode(encode(phone));
+    }
+
+    /**
+     * Normalizes beginning of phone number into every prefix of normalized numbers it may be the beginning of:
+     * "0044" becomes "+44", and "8911" may begin national number with trunk prefix ("+7911"), national number
+     * without it ("+78911") or short number kept as it is ("8911").
+     *
+     * @param prefix      beginning of phone number (String)
+     * @param countryCode country code given to national numbers (String)
+     * @return normalized prefixes, empty if string can't be beginning of a valid phone number (List of Strings)
+     */
+    public static List<String> normalizePrefixes(String prefix, String countryCode) {
+        String digits = strip(prefix);
+        List<String> prefixes = new ArrayList<>(3);
+        if (digits == null) return prefixes;
+        if (digits.startsWith("+")) {
+            prefixes.add(digits);
+        } else if (digits.startsWith(INTERNATIONAL_PREFIX)) {
+            prefixes.add('+' + digits.substring(INTERNATIONAL_PREFIX.length()));
+        } else {
+            prefixes.add(digits);
+            if (digits.length() <= NATIONAL_NUMBER_LENGTH) prefixes.add('+' + countryCode + digits);
+            if (digits.startsWith(TRUNK_PREFIX) && digits.length() <= TRUNK_PREFIX.length() + NATIONAL_NUMBER_LENGTH) {
+                prefixes.add('+' + countryCode + digits.substring(TRUNK_PREFIX.length()));
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * @return normalized number, or null if string is not a valid phone number
+     */
+    private static String normalizeOrNull(String phone, String countryCode) {
+        String digits = strip(phone);
+        if (digits == null || digits.isEmpty() || digits.equals("+")) return null;
+        if (digits.startsWith("+")) return digits;
+        if (digits.startsWith(INTERNATIONAL_PREFIX)) return '+' + digits.substring(INTERNATIONAL_PREFIX.length());
+        if (digits.length() == TRUNK_PREFIX.length() + NATIONAL_NUMBER_LENGTH && digits.startsWith(TRUNK_PREFIX)) {
+            return '+' + countryCode + digits.substring(TRUNK_PREFIX.length());
+        }
+        if (digits.length() == NATIONAL_NUMBER_LENGTH) return '+' + countryCode + digits;
+        return digits;
+    }
+
+    /**
+     * Drops formatting characters.
+     *
+     * @return digits with optional leading '+', or null if string contains other characters
+     */
+    private static String strip(String phone) {
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && digits.length() == 0) {
+                digits.append(c);
+            } else if (c != ' ' && c != '-' && c != '.' && c != '(' && c != ')') {
+                return null;
+            }
+        }
+        return digits.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package phone_book;
+
+import java.util.Arrays;
+
+/**
+ * Set of phone numbers of one contact, packed by {@link PhoneNumber} into primitive longs and kept in a small
+ * open-addressing hash table with linear probing. Adding and checking a phone take constant time, and a contact with
+ * one phone costs one small object and two small long arrays instead of a list, a string and its byte array.
+ * Removal shifts following phones of the probe chain back, so the table never needs deletion markers.
+ * Beside the table, phones are kept in order of adding in an array of exactly their number, replaced on every change,
+ * so phones are listed in the order they were added, whatever the table size is.
+ * Copy-on-write set replaces its table on every change, so it can be read without locking while other thread
+ * changes it. Changes of copy-on-write set are synchronized.
+ *
+ * @see PhoneNumber
+ */
+final class PhoneSet {
+
+    private static final int INITIAL_CAPACITY = 2;
+    private static final long[] NO_PHONES = new long[0];
+
+    private final boolean copyOnWrite;
+    private volatile long[] table = new long[INITIAL_CAPACITY];
+    //phones in order of adding, never changed once published
+    private volatile long[] orderedPhones = NO_PHONES;
+
+    PhoneSet(boolean copyOnWrite) {
+        this.copyOnWrite = copyOnWrite;
+    }
+
+    /**
+     * Adds packed phone to the set.
+     *
+     * @param phone packed phone number (long)
+     * @return true if phone was not in the set yet
+     */
+    boolean add(long phone) {
+        if (!copyOnWrite) return insert(phone);
+        synchronized (this) {
+            return insert(phone);
+        }
+    }
+
+    /**
+     * Removes packed phone from the set.
+     *
+     * @param phone packed phone number (long)
+     * @return true if phone was in the set
+     */
+    boolean remove(long phone) {
+        if (!copyOnWrite) return delete(phone);
+        synchronized (this) {
+            return delete(phone);
+        }
+    }
+
+    /**
+     * @param phone packed phone number (long)
+     * @return true if the set contains phone
+     */
+    boolean contains(long phone) {
+        long[] current = table;
+        int mask = current.length - 1;
+        for (int slot = slot(phone, mask); current[slot] != 0; slot = (slot + 1) & mask) {
+            if (current[slot] == phone) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of phones in the set (int)
+     */
+    int size() {
+        return orderedPhones.length;
+    }
+
+    /**
+     * @return packed phones of the set, in order they were added (array of longs)
+     */
+    long[] toArray() {
+        return orderedPhones.clone();
+    }
+
+    private boolean insert(long phone) {
+        if (contains(phone)) return false;
+        long[] current = table;
+        long[] target;
+        long[] phones = orderedPhones;
+        if ((phones.length + 1) * 4 > current.length * 3) {
+            target = new long[current.length * 2];
+            for (long existing : current) {
+                if (existing != 0) put(target, existing);
+            }
+        } else {
+            target = copyOnWrite ? current.clone() : current;
+        }
+        put(target, phone);
+        long[] newPhones = Arrays.copyOf(phones, phones.length + 1);
+        newPhones[phones.length] = phone;
+        table = target;
+        orderedPhones = newPhones;
+        return true;
+    }
+
+    private boolean delete(long phone) {
+        long[] current = table;
+        int mask = current.length - 1;
+        int slot = slot(phone, mask);
+        while (current[slot] != phone) {
+            if (current[slot] == 0) return false;
+            slot = (slot + 1) & mask;
+        }
+
+        long[] target = copyOnWrite ? current.clone() : current;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; target[next] != 0; next = (next + 1) & mask) {
+            //phone may fill the hole only if the hole lies between its home slot and its current slot
+            int home = slot(target[next], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                target[hole] = target[next];
+                hole = next;
+            }
+        }
+        target[hole] = 0;
+        long[] phones = orderedPhones;
+        long[] newPhones = new long[phones.length - 1];
+        int count = 0;
+        for (long existing : phones) {
+            if (existing != phone) newPhones[count++] = existing;
+        }
+        table = target;
+        orderedPhones = newPhones;
+        return true;
+    }
+
+    private static void put(long[] target, long phone) {
+        int mask = target.length - 1;
+        int slot = slot(phone, mask);
+        while (target[slot] != 0) slot = (slot + 1) & mask;
+        target[slot] = phone;
+    }
+
+    private static int slot(long phone, int mask) {
+        long hash = phone * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
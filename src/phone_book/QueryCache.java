@@ -0,0 +1,218 @@
+package phone_book;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of partial name search results of {@link PhoneBook}, evicting least recently used queries.
+ * Cache is invalidated precisely: when contact is added or removed, only cached queries contained in its name
+ * are dropped. Changing phones does not change names matching any query, so it does not invalidate anything.
+ * Result computed while some contact was added or removed is not cached, so cache never keeps stale result.
+ * <p>
+ * Lookups don't lock: results are kept in a concurrent map, and each lookup just stamps access time of the result.
+ * Cached queries are indexed by their first {@link #KEY_LENGTH} characters, so invalidation checks only queries
+ * keyed by some substring of the name, not the whole cache. Queries of one key are cached and invalidated under
+ * one of {@link #KEY_STRIPES} locks chosen by the key, so writers changing different names rarely wait for each
+ * other. Caching publishes result before it checks count of invalidations, and invalidation is counted before
+ * it looks for queries, so result computed before invalidation is either rejected or found and dropped by it.
+ * Once cache is over capacity, least recently used eighth of it is evicted at once by one thread, so eviction cost
+ * is spread over many queries.
+ * Cache is thread-safe.
+ *
+ * @see PhoneBook#setQueryCacheCapacity(int)
+ */
+public class QueryCache {
+
+    static final int KEY_LENGTH = 3;
+    static final int KEY_STRIPES = 64;
+
+    private final int capacity;
+    private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+    //cached queries by their first KEY_LENGTH characters, every set guarded by lock of its key
+    private final Map<String, Set<String>> queriesByKey = new ConcurrentHashMap<>();
+    private final Object[] keyLocks = new Object[KEY_STRIPES];
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    QueryCache(int capacity) {
+        this.capacity = capacity;
+        for (int i = 0; i < KEY_STRIPES; i++) {
+            keyLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * @return maximum number of cached queries (int)
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of cached queries (int)
+     */
+    public int getSize() {
+        return results.size();
+    }
+
+    /**
+     * @return number of lookups answered by the cache (long)
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return number of lookups not found in the cache (long)
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Finds cached result of query and counts hit or miss.
+     *
+     * @return cached result, or null if query is not cached
+     */
+    Set<String> get(String query) {
+        CachedResult result = results.get(query);
+        if (result == null || !result.checked) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        result.lastAccess = System.nanoTime();
+        return result.contacts;
+    }
+
+    /**
+     * @return stamp to pass to {@link #put(String, Set, long)} for result computed after this call
+     */
+    long stamp() {
+        return invalidationCount.sum();
+    }
+
+    /**
+     * Caches query result unless some contact was added or removed since stamp was taken.
+     */
+    void put(String query, Set<String> result, long stamp) {
+        String key = key(query);
+        synchronized (lockOf(key)) {
+            Set<String> queries = queriesByKey.computeIfAbsent(key, k -> new HashSet<>());
+            queries.add(query);
+            CachedResult cachedResult = new CachedResult(result);
+            results.put(query, cachedResult);
+            if (stamp != invalidationCount.sum()) {
+                results.remove(query);
+                queries.remove(query);
+                if (queries.isEmpty()) queriesByKey.remove(key);
+                return;
+            }
+            cachedResult.checked = true;
+        }
+        if (results.size() > capacity && evicting.compareAndSet(false, true)) {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Drops cached queries contained in name of added or removed contact.
+     *
+     * @param name name of changed contact (String)
+     */
+    void invalidate(String name) {
+        invalidationCount.increment();
+        if (results.isEmpty()) return;
+        invalidateKey("", name);
+        for (int start = 0; start < name.length(); start++) {
+            for (int end = start + 1; end <= Math.min(start + KEY_LENGTH, name.length()); end++) {
+                invalidateKey(name.substring(start, end), name);
+            }
+        }
+    }
+
+    private void invalidateKey(String key, String name) {
+        if (!queriesByKey.containsKey(key)) return;
+        synchronized (lockOf(key)) {
+            Set<String> queries = queriesByKey.get(key);
+            if (queries == null) return;
+            Iterator<String> iterator = queries.iterator();
+            while (iterator.hasNext()) {
+                String query = iterator.next();
+                if (name.contains(query)) {
+                    iterator.remove();
+                    results.remove(query);
+                }
+            }
+            if (queries.isEmpty()) queriesByKey.remove(key);
+        }
+    }
+
+    /**
+     * Evicts least recently used queries, leaving seven eighths of capacity cached.
+     */
+    private void evict() {
+        //access times are copied, because lookups keep changing them while entries are sorted
+        List<Map.Entry<String, CachedResult>> entries = new ArrayList<>(results.size());
+        List<Long> accessTimes = new ArrayList<>(results.size());
+        for (Map.Entry<String, CachedResult> entry : results.entrySet()) {
+            entries.add(entry);
+            accessTimes.add(entry.getValue().lastAccess);
+        }
+        Integer[] order = new Integer[entries.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(accessTimes::get));
+        int evictCount = entries.size() - (capacity - capacity / 8);
+        for (int i = 0; i < evictCount; i++) {
+            Map.Entry<String, CachedResult> entry = entries.get(order[i]);
+            String query = entry.getKey();
+            String key = key(query);
+            synchronized (lockOf(key)) {
+                //query may have been invalidated and cached again since entries were listed
+                if (!results.remove(query, entry.getValue())) continue;
+                Set<String> queries = queriesByKey.get(key);
+                queries.remove(query);
+                if (queries.isEmpty()) queriesByKey.remove(key);
+            }
+        }
+    }
+
+    private Object lockOf(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return keyLocks[(hash ^ (hash >>> 16)) & (KEY_STRIPES - 1)];
+    }
+
+    private static String key(String query) {
+        return query.length() <= KEY_LENGTH ? query : query.substring(0, KEY_LENGTH);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache: (" +
+                "capacity=" + capacity +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ')';
+    }
+
+    /**
+     * Cached result with time of last lookup. Result is not returned by lookups until its stamp is checked.
+     */
+    private static class CachedResult {
+        private final Set<String> contacts;
+        private volatile long lastAccess = System.nanoTime();
+        private volatile boolean checked;
+
+        private CachedResult(Set<String> contacts) {
+            this.contacts = contacts;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package phone_book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Phone book partitioned by contact name hash across several shards. Shards are either local {@link PhoneBook}s
+ * in this JVM, or {@link PhoneBookServer}s running in separate JVMs and reached over loopback.
+ * Every contact lives in exactly one shard, so adding and exact lookup by name go to one shard only. Searches by
+ * part of name or by phone don't know the shard, so they are sent to all shards in parallel and their results
+ * are merged (scatter-gather), and search time depends on the largest shard rather than on all contacts.
+ * Calling thread queries one of the shards itself, and other shards are queried by workers of a cached pool,
+ * so concurrent callers don't queue behind each other's searches. Every remote shard keeps its own pool of
+ * up to {@link #DEFAULT_CLIENTS_PER_SHARD} connections, so concurrent requests to one shard don't wait for each other.
+ * <p>
+ * Failure of remote shard is thrown as {@link UncheckedIOException}.
+ *
+ * @see PhoneBook
+ * @see PhoneBookServer
+ */
+public class ShardedPhoneBook implements Closeable {
+
+    public static final int DEFAULT_CLIENTS_PER_SHARD = 4;
+
+    private final List<Shard> shards;
+    private final ExecutorService executor;
+    //largest limit every shard answers in full
+    private final int maxFindLimit;
+
+    private ShardedPhoneBook(List<Shard> shards) {
+        this.shards = shards;
+        this.maxFindLimit = shards.stream().mapToInt(Shard::maxFindLimit).min().orElse(Integer.MAX_VALUE);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "phone-book-shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates phone book of local shards, each being concurrent {@link PhoneBook}.
+     *
+     * @param shardCount number of shards (int)
+     * @return sharded phone book ({@link ShardedPhoneBook} object)
+     * @throws IllegalArgumentException if shard count is not positive
+     */
+    public static ShardedPhoneBook local(int shardCount) throws IllegalArgumentException {
+        if (shardCount <= 0) throw new IllegalArgumentException("Shard count must be positive.");
+        List<Shard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new LocalShard(new PhoneBook(true)));
+        }
+        return new ShardedPhoneBook(shards);
+    }
+
+    /**
+     * Creates phone book of remote shards. Every address should be served by its own {@link PhoneBookServer},
+     * and addresses must be given in the same order every time, because contacts are routed by shard position.
+     *
+     * @param addresses addresses of shard servers (List of {@link InetSocketAddress} objects)
+     * @return sharded phone book ({@link ShardedPhoneBook} object)
+     * @throws IOException              if some shard can't be connected
+     * @throws IllegalArgumentException if there are no addresses
+     */
+    public static ShardedPhoneBook remote(List<InetSocketAddress> addresses) throws IOException, IllegalArgumentException {
+        return remote(addresses, DEFAULT_CLIENTS_PER_SHARD);
+    }
+
+    /**
+     * Creates phone book of remote shards. Every address should be served by its own {@link PhoneBookServer},
+     * and addresses must be given in the same order every time, because contacts are routed by shard position.
+     *
+     * @param addresses       addresses of shard servers (List of {@link InetSocketAddress} objects)
+     * @param clientsPerShard maximum number of connections to one shard (int)
+     * @return sharded phone book ({@link ShardedPhoneBook} object)
+     * @throws IOException              if some shard can't be connected
+     * @throws IllegalArgumentException if there are no addresses or number of connections is not positive
+     */
+    public static ShardedPhoneBook remote(List<InetSocketAddress> addresses, int clientsPerShard)
+            throws IOException, IllegalArgumentException {
+        if (addresses.isEmpty()) throw new IllegalArgumentException("At least one shard address is needed!");
+        if (clientsPerShard <= 0) throw new IllegalArgumentException("Clients per shard must be positive.");
+        List<Shard> shards = new ArrayList<>(addresses.size());
+        try {
+            for (InetSocketAddress address : addresses) {
+                shards.add(new RemoteShard(address, clientsPerShard));
+            }
+        } catch (IOException e) {
+            for (Shard shard : shards) {
+                shard.close();
+            }
+            throw e;
+        }
+        return new ShardedPhoneBook(shards);
+    }
+
+    /**
+     * @return number of shards (int)
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public void addContact(String name) {
+        shardOf(name).addContact(name, null);
+    }
+
+    /**
+     * @throws IllegalArgumentException if phone is not a valid phone number
+     */
+    public void addContact(String name, String phone) throws IllegalArgumentException {
+        shardOf(name).addContact(name, phone);
+    }
+
+    /**
+     * @return true if contact was removed, false if there is no such contact
+     */
+    public boolean removeContact(String name) {
+        return shardOf(name).removeContact(name);
+    }
+
+    /**
+     * @return true if phone was removed, false if contact does not have this phone or does not exist
+     */
+    public boolean removePhone(String name, String phone) {
+        return shardOf(name).removePhone(name, phone);
+    }
+
+    /**
+     * Merges source contact into target contact: phones of source are added to target, which is created if absent,
+     * and source is removed. Contacts may live in different shards, so merge is not atomic.
+     *
+     * @param targetName name of contact to keep (String)
+     * @param sourceName name of contact to merge and remove (String)
+     * @return true if contacts were merged, false if there is no source contact
+     * @throws IllegalArgumentException if target and source are the same contact
+     */
+    public boolean mergeContacts(String targetName, String sourceName) throws IllegalArgumentException {
+        if (targetName.equals(sourceName)) throw new IllegalArgumentException("Contact can't be merged into itself!");
+        Shard sourceShard = shardOf(sourceName);
+        List<String> phones = sourceShard.getPhones(sourceName);
+        if (phones == null || !sourceShard.removeContact(sourceName)) return false;
+        Shard targetShard = shardOf(targetName);
+        targetShard.addContact(targetName, null);
+        for (String phone : phones) {
+            targetShard.addContact(targetName, phone);
+        }
+        return true;
+    }
+
+    /**
+     * Finds contact by its exact name, asking only the shard of this name.
+     *
+     * @param name contact name (String)
+     * @return found contact ({@link Contact} object), or null if there is no such contact
+     */
+    public Contact findContact(String name) {
+        List<String> phones = shardOf(name).getPhones(name);
+        if (phones == null) return null;
+        else return new Contact(name, phones);
+    }
+
+    /**
+     * Finds names of contacts which contain given part, searching all shards in parallel. Remote shards answer
+     * at most {@link PhoneBookServer#MAX_FIND_LIMIT} names, so with remote shards limit is capped at it too.
+     *
+     * @param partialName part of contact name (String)
+     * @param limit       maximum number of names (int)
+     * @return first names in alphabetical order (List of Strings)
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public List<String> findContacts(String partialName, int limit) throws IllegalArgumentException {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive.");
+        int shardLimit = Math.min(limit, maxFindLimit);
+        //every shard returns its first names in order, so first names of all shards are among them
+        return scatter(shard -> shard.findContacts(partialName, shardLimit)).stream()
+                .flatMap(List::stream)
+                .sorted()
+                .limit(shardLimit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds all contacts owning given phone number, searching all shards in parallel.
+     *
+     * @param phone phone number (String)
+     * @return sorted set of contact names, or null if number is unknown
+     */
+    public Set<String> getContactsByPhone(String phone) {
+        Set<String> owners = new TreeSet<>();
+        for (List<String> shardOwners : scatter(shard -> shard.getContactsByPhone(phone))) {
+            if (shardOwners != null) owners.addAll(shardOwners);
+        }
+        if (owners.isEmpty()) return null;
+        else return owners;
+    }
+
+    /**
+     * Stops shard workers and disconnects from remote shards. Local shards are dropped.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private Shard shardOf(String name) {
+        int hash = name.hashCode() * 0x9E3779B9;
+        return shards.get(Math.floorMod(hash ^ (hash >>> 16), shards.size()));
+    }
+
+    private <T> List<T> scatter(Function<Shard, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards.subList(1, shards.size())) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), executor));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        results.add(query.apply(shards.get(0)));
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * One partition of contacts.
+     */
+    private interface Shard {
+        void addContact(String name, String phone);
+
+        boolean removeContact(String name);
+
+        boolean removePhone(String name, String phone);
+
+        List<String> getPhones(String name);
+
+        List<String> findContacts(String partialName, int limit);
+
+        /**
+         * @return largest limit of {@link #findContacts(String, int)} answered in full (int)
+         */
+        int maxFindLimit();
+
+        List<String> getContactsByPhone(String phone);
+
+        void close();
+    }
+
+    private static class LocalShard implements Shard {
+        private final PhoneBook phoneBook;
+
+        private LocalShard(PhoneBook phoneBook) {
+            this.phoneBook = phoneBook;
+        }
+
+        @Override
+        public void addContact(String name, String phone) {
+            if (phone == null) phoneBook.addContact(name);
+            else phoneBook.addContact(name, phone);
+        }
+
+        @Override
+        public boolean removeContact(String name) {
+            return phoneBook.removeContact(name);
+        }
+
+        @Override
+        public boolean removePhone(String name, String phone) {
+            return phoneBook.removePhone(name, phone);
+        }
+
+        @Override
+        public List<String> getPhones(String name) {
+            Contact contact = phoneBook.findContact(name);
+            return contact == null ? null : contact.getPhones();
+        }
+
+        @Override
+        public List<String> findContacts(String partialName, int limit) {
+            return phoneBook.findContacts(partialName)
+                    .limit(limit)
+                    .map(Contact::getName)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public int maxFindLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<String> getContactsByPhone(String phone) {
+            Set<String> owners = phoneBook.getContactsByPhone(phone);
+            return owners == null ? null : new ArrayList<>(owners);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Shard served by {@link PhoneBookServer}. Client is not thread-safe, so shard keeps a small pool of clients:
+     * concurrent requests take different clients, opened on demand up to pool size, and wait for a free client
+     * beyond it. Client failed with I/O error is closed and dropped from the pool.
+     */
+    private static class RemoteShard implements Shard {
+        private final InetSocketAddress address;
+        private final Semaphore permits;
+        private final Deque<PhoneBookClient> idleClients = new ConcurrentLinkedDeque<>();
+        private volatile boolean closed;
+
+        private RemoteShard(InetSocketAddress address, int poolSize) throws IOException {
+            this.address = address;
+            this.permits = new Semaphore(poolSize);
+            //first client is connected right away, so unreachable shard fails fast
+            idleClients.push(PhoneBookClient.connect(address));
+        }
+
+        @Override
+        public void addContact(String name, String phone) {
+            call(client -> {
+                if (phone == null) client.addContact(name);
+                else client.addContact(name, phone);
+                return null;
+            });
+        }
+
+        @Override
+        public boolean removeContact(String name) {
+            return call(client -> client.removeContact(name));
+        }
+
+        @Override
+        public boolean removePhone(String name, String phone) {
+            return call(client -> client.removePhone(name, phone));
+        }
+
+        @Override
+        public List<String> getPhones(String name) {
+            return call(client -> client.getContact(name));
+        }
+
+        @Override
+        public List<String> findContacts(String partialName, int limit) {
+            return call(client -> client.findContacts(partialName, limit));
+        }
+
+        @Override
+        public int maxFindLimit() {
+            return PhoneBookServer.MAX_FIND_LIMIT;
+        }
+
+        @Override
+        public List<String> getContactsByPhone(String phone) {
+            return call(client -> client.getContactsByPhone(phone));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            closeIdleClients();
+        }
+
+        /**
+         * Runs request on a pooled client. Client is returned to the pool after success or rejected request,
+         * and dropped after any other failure, because its responses may be out of step with requests.
+         */
+        private <T> T call(ClientCall<T> call) {
+            PhoneBookClient client = borrow();
+            try {
+                T result = call.apply(client);
+                release(client);
+                return result;
+            } catch (IllegalArgumentException e) {
+                release(client);
+                throw e;
+            } catch (IOException e) {
+                drop(client);
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                drop(client);
+                throw e;
+            }
+        }
+
+        private PhoneBookClient borrow() {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for shard client"));
+            }
+            PhoneBookClient client = idleClients.poll();
+            if (client != null) return client;
+            try {
+                if (closed) throw new IOException("Shard is closed: " + address);
+                return PhoneBookClient.connect(address);
+            } catch (IOException e) {
+                permits.release();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void release(PhoneBookClient client) {
+            idleClients.push(client);
+            permits.release();
+            //shard was closed while client was busy
+            if (closed) closeIdleClients();
+        }
+
+        private void drop(PhoneBookClient client) {
+            closeQuietly(client);
+            permits.release();
+        }
+
+        private void closeIdleClients() {
+            PhoneBookClient client;
+            while ((client = idleClients.poll()) != null) {
+                closeQuietly(client);
+            }
+        }
+
+        private static void closeQuietly(PhoneBookClient client) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                //connection is dropped anyway
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ClientCall<T> {
+        T apply(PhoneBookClient client) throws IOException;
+    }
+}
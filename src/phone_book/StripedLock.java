@@ -0,0 +1,47 @@
+package phone_book;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-write lock split into {@link #STRIPES} stripes, used by search indexes of {@link PhoneBook}.
+ * Changes of the index take read lock of one stripe chosen by hash of the changed key, so concurrent writers
+ * of different keys don't contend on one lock word. Compaction takes write locks of all stripes, which excludes
+ * every change at once.
+ */
+final class StripedLock {
+
+    static final int STRIPES = 64;
+
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+
+    StripedLock() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * @param hash hash of changed key (int)
+     * @return read lock of the stripe of given hash (Lock)
+     */
+    Lock readLock(int hash) {
+        hash *= 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)].readLock();
+    }
+
+    /**
+     * Takes write locks of all stripes, waiting for every running change to finish.
+     */
+    void lockAll() {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+}